@@ -0,0 +1,20 @@
+package org.team1619.processor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers a behavior under the name states.yaml refers to it by
+ *
+ * BehaviorRegistryProcessor collects every annotated behavior into the generated BehaviorRegistry at compile time.
+ * The annotation is kept in the class files because Gradle's incremental compilation only gives an aggregating
+ * processor the unchanged behaviors through their class files, it is never read at run time.
+ */
+
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface BehaviorName {
+	String value();
+}
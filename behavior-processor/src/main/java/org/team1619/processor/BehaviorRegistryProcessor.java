@@ -0,0 +1,201 @@
+package org.team1619.processor;
+
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Generates org.team1619.modelfactory.BehaviorRegistry from the classes annotated with @BehaviorName
+ *
+ * The registry is a table of constructor lambdas keyed by behavior name, so creating a behavior needs no reflection
+ * and no hand-maintained switch. Each constructor parameter of type Config gets the state's config, every other
+ * parameter is looked up by type in BehaviorDependencies.
+ *
+ * At compile time every annotated class is checked to be a Behavior with one public constructor and a unique name.
+ * When the behaviorStatesFile option points at states.yaml, every behavior it references must be registered.
+ */
+
+@SupportedAnnotationTypes("org.team1619.processor.BehaviorName")
+@SupportedOptions(BehaviorRegistryProcessor.STATES_FILE_OPTION)
+public class BehaviorRegistryProcessor extends AbstractProcessor {
+
+	static final String STATES_FILE_OPTION = "behaviorStatesFile";
+
+	private static final String REGISTRY_PACKAGE = "org.team1619.modelfactory";
+	private static final String REGISTRY_NAME = "BehaviorRegistry";
+	private static final String BEHAVIOR_TYPE = "org.uacr.models.behavior.Behavior";
+	private static final String CONFIG_TYPE = "org.uacr.utilities.Config";
+
+	private final Map<String, String> fConstructors = new TreeMap<>();
+	private final List<Element> fOriginatingElements = new ArrayList<>();
+	private boolean mGenerated = false;
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+		Messager messager = processingEnv.getMessager();
+		Types types = processingEnv.getTypeUtils();
+		TypeElement behaviorType = processingEnv.getElementUtils().getTypeElement(BEHAVIOR_TYPE);
+
+		for (Element element : roundEnvironment.getElementsAnnotatedWith(BehaviorName.class)) {
+			String name = element.getAnnotation(BehaviorName.class).value();
+			if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+				messager.printMessage(Diagnostic.Kind.ERROR, "@BehaviorName must be on a concrete class", element);
+				continue;
+			}
+			TypeElement behavior = (TypeElement) element;
+			if (behaviorType != null && !types.isAssignable(behavior.asType(), behaviorType.asType())) {
+				messager.printMessage(Diagnostic.Kind.ERROR, behavior.getSimpleName() + " is registered as " + name + " but is not a Behavior", element);
+				continue;
+			}
+			if (fConstructors.containsKey(name)) {
+				messager.printMessage(Diagnostic.Kind.ERROR, "Behavior " + name + " is registered more than once", element);
+				continue;
+			}
+
+			List<ExecutableElement> constructors = new ArrayList<>();
+			for (Element member : behavior.getEnclosedElements()) {
+				if (member.getKind() == ElementKind.CONSTRUCTOR && member.getModifiers().contains(Modifier.PUBLIC)) {
+					constructors.add((ExecutableElement) member);
+				}
+			}
+			if (constructors.size() != 1) {
+				messager.printMessage(Diagnostic.Kind.ERROR, "Behavior " + name + " needs exactly one public constructor", element);
+				continue;
+			}
+
+			List<String> arguments = new ArrayList<>();
+			for (VariableElement parameter : constructors.get(0).getParameters()) {
+				TypeMirror type = types.erasure(parameter.asType());
+				arguments.add(type.toString().equals(CONFIG_TYPE) ? "config" : "dependencies.get(" + type + ".class)");
+			}
+			fConstructors.put(name, "new " + behavior.getQualifiedName() + "(" + String.join(", ", arguments) + ")");
+			fOriginatingElements.add(element);
+		}
+
+		if (roundEnvironment.processingOver() || mGenerated || fConstructors.isEmpty()) {
+			return true;
+		}
+		mGenerated = true;
+		writeRegistry();
+		checkStates();
+		return true;
+	}
+
+	private void writeRegistry() {
+		Filer filer = processingEnv.getFiler();
+		StringBuilder source = new StringBuilder();
+		source.append("package ").append(REGISTRY_PACKAGE).append(";\n\n");
+		source.append("import org.uacr.models.behavior.Behavior;\n");
+		source.append("import org.uacr.models.exceptions.ConfigurationException;\n");
+		source.append("import org.uacr.utilities.Config;\n\n");
+		source.append("import java.util.Map;\n");
+		source.append("import java.util.Set;\n\n");
+		source.append("/**\n * Generated by BehaviorRegistryProcessor from the @BehaviorName annotations, do not edit\n */\n\n");
+		source.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+		source.append("public final class ").append(REGISTRY_NAME).append(" {\n\n");
+		source.append("\tprivate interface Factory {\n");
+		source.append("\t\tBehavior create(Config config, BehaviorDependencies dependencies);\n");
+		source.append("\t}\n\n");
+		source.append("\tprivate static final Map<String, Factory> sFactories = Map.ofEntries(\n");
+		int index = 0;
+		for (Map.Entry<String, String> constructor : fConstructors.entrySet()) {
+			source.append("\t\t\tMap.entry(\"").append(constructor.getKey()).append("\", (config, dependencies) -> ").append(constructor.getValue()).append(")");
+			source.append(++index < fConstructors.size() ? ",\n" : ");\n\n");
+		}
+		source.append("\tprivate ").append(REGISTRY_NAME).append("() {\n\t}\n\n");
+		source.append("\tpublic static Set<String> getNames() {\n");
+		source.append("\t\treturn sFactories.keySet();\n");
+		source.append("\t}\n\n");
+		source.append("\tpublic static boolean contains(String name) {\n");
+		source.append("\t\treturn sFactories.containsKey(name);\n");
+		source.append("\t}\n\n");
+		source.append("\tpublic static Behavior create(String name, Config config, BehaviorDependencies dependencies) {\n");
+		source.append("\t\tFactory factory = sFactories.get(name);\n");
+		source.append("\t\tif (factory == null) {\n");
+		source.append("\t\t\tthrow new ConfigurationException(\"Behavior \" + name + \" does not exist.\");\n");
+		source.append("\t\t}\n");
+		source.append("\t\treturn factory.create(config, dependencies);\n");
+		source.append("\t}\n");
+		source.append("}\n");
+
+		try {
+			JavaFileObject file = filer.createSourceFile(REGISTRY_PACKAGE + "." + REGISTRY_NAME, fOriginatingElements.toArray(new Element[0]));
+			try (Writer writer = file.openWriter()) {
+				writer.write(source.toString());
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write " + REGISTRY_NAME + ": " + e.getMessage());
+		}
+	}
+
+	private void checkStates() {
+		Messager messager = processingEnv.getMessager();
+		String statesFile = processingEnv.getOptions().get(STATES_FILE_OPTION);
+		if (statesFile == null) {
+			messager.printMessage(Diagnostic.Kind.NOTE, "No -A" + STATES_FILE_OPTION + " given, behavior references in states.yaml are not checked");
+			return;
+		}
+
+		Path path = Paths.get(statesFile);
+		Object states;
+		try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			states = new Yaml().load(reader);
+		} catch (IOException | YAMLException e) {
+			messager.printMessage(Diagnostic.Kind.ERROR, "Could not read " + path + ": " + e.getMessage());
+			return;
+		}
+		checkBehaviorReferences(path, "", states);
+	}
+
+	// Every "behavior:" entry anywhere in the file names a behavior
+	private void checkBehaviorReferences(Path path, String state, Object node) {
+		if (node instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) node).entrySet()) {
+				String key = String.valueOf(entry.getKey());
+				if (key.equals("behavior") && entry.getValue() instanceof String && !fConstructors.containsKey(entry.getValue())) {
+					processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, path.getFileName() + ": state " + state + " uses behavior " + entry.getValue()
+							+ " which has no @BehaviorName, registered behaviors are " + String.join(", ", fConstructors.keySet()));
+				}
+				checkBehaviorReferences(path, key.startsWith("st_") ? key : state, entry.getValue());
+			}
+		} else if (node instanceof List) {
+			for (Object item : (List<?>) node) {
+				checkBehaviorReferences(path, state, item);
+			}
+		}
+	}
+}
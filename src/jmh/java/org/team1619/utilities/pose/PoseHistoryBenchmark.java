@@ -0,0 +1,58 @@
+package org.team1619.utilities.pose;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert and lookup cost of the PoseHistory at the 100 Hz core rate with a 1.5 second horizon
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PoseHistoryBenchmark {
+
+	private static final double RATE = 100.0;
+	private static final double HORIZON = 1.5;
+	private static final int CAPACITY = (int) (RATE * HORIZON);
+	private static final int LOOKUPS = 1024;
+
+	private PoseHistory mPoseHistory;
+	private double[] mLookupTimes;
+	private double[] mPose;
+	private double mTime;
+	private int mLookup;
+
+	@Setup
+	public void setUp() {
+		mPoseHistory = new PoseHistory(CAPACITY);
+		mPose = new double[3];
+		mTime = 0;
+		for (int i = 0; i < CAPACITY; i++) {
+			insert();
+		}
+
+		// Lookups spread over the horizon, between stored samples so they interpolate
+		mLookupTimes = new double[LOOKUPS];
+		double oldest = mTime - (CAPACITY - 1) / RATE;
+		for (int i = 0; i < LOOKUPS; i++) {
+			mLookupTimes[i] = oldest + (HORIZON - 1 / RATE) * ((i * 0.618034) % 1.0);
+		}
+		mLookup = 0;
+	}
+
+	@Benchmark
+	public int insert() {
+		mTime += 1 / RATE;
+		mPoseHistory.add(mTime, Math.cos(mTime), Math.sin(mTime), mTime * 10);
+		return mPoseHistory.size();
+	}
+
+	@Benchmark
+	public double lookup() {
+		mLookup = (mLookup + 1) & (LOOKUPS - 1);
+		mPoseHistory.getPose(mLookupTimes[mLookup], mPose);
+		return mPose[0] + mPose[2];
+	}
+}
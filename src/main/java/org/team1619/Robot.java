@@ -1,14 +1,15 @@
 package org.team1619;
 
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.TimedRobot;
-import org.team1619.services.logging.LoggingService;
 import org.team1619.state.RobotModule;
+import org.team1619.utilities.overload.OverloadController;
+import org.team1619.utilities.services.FirstEnableFrameRecorder;
+import org.team1619.warmup.JitWarmUp;
 import org.uacr.services.input.InputService;
-import org.uacr.services.output.OutputService;
-import org.uacr.services.states.StatesService;
-import org.uacr.services.webdashboard.WebDashboardService;
 import org.uacr.shared.abstractions.FMS;
+import org.uacr.shared.abstractions.InputValues;
 import org.uacr.shared.concretions.SharedRobotConfiguration;
 import org.uacr.utilities.Config;
 import org.uacr.utilities.YamlConfigParser;
@@ -20,6 +21,8 @@ import org.uacr.utilities.services.Scheduler;
 import org.uacr.utilities.services.managers.AsyncServiceManager;
 import org.uacr.utilities.services.managers.ServiceManager;
 
+import java.lang.management.ManagementFactory;
+
 public class Robot extends TimedRobot {
 
 	private static final Logger sLogger = LogManager.getLogger(Robot.class);
@@ -27,7 +30,10 @@ public class Robot extends TimedRobot {
 	private final Injector fInjector;
 	private final ServiceManager fServiceManager;
 	private final InputService fInputService;
+	private final InputValues fSharedInputValues;
 	private final FMS fFMS;
+	private final JitWarmUp fJitWarmUp;
+	private final FirstEnableFrameRecorder fFirstEnableFrames;
 
 	public Robot() {
 
@@ -40,23 +46,25 @@ public class Robot extends TimedRobot {
 		}
 
 		fInjector = new Injector(new RobotModule());
-		fInjector.getInstance(SharedRobotConfiguration.class).initialize();
+		SharedRobotConfiguration robotConfiguration = fInjector.getInstance(SharedRobotConfiguration.class);
+		robotConfiguration.initialize();
 
-		StatesService statesService = fInjector.getInstance(StatesService.class);
 		fInputService = fInjector.getInstance(InputService.class);
-		OutputService outputService = fInjector.getInstance(OutputService.class);
-		LoggingService loggingService = fInjector.getInstance(LoggingService.class);
-		// TODO comment out to turn off webdashboard service
-		WebDashboardService webDashboardService = fInjector.getInstance(WebDashboardService.class);
+		OverloadController overloadController = fInjector.getInstance(OverloadController.class);
+		fJitWarmUp = new JitWarmUp(robotConfiguration);
+		fFirstEnableFrames = new FirstEnableFrameRecorder(overloadController, fJitWarmUp.isEnabled() ? "JIT warm-up on" : "JIT warm-up off",
+				robotConfiguration.getInt("global_warmup", "report_frames"));
 
-		ScheduledMultiService coreService = new ScheduledMultiService(new Scheduler(10), fInputService, statesService, outputService);
-		ScheduledMultiService infoService = new ScheduledMultiService(new Scheduler(30), loggingService, webDashboardService);
+		RobotServices services = new RobotServices(fInjector, robotConfiguration).addFrameBeginService(fFirstEnableFrames.getService());
+		ScheduledMultiService coreService = services.buildCoreService();
+		ScheduledMultiService infoService = services.buildInfoService();
 
 		fServiceManager = new AsyncServiceManager(coreService, infoService);
 
 		// TODO comment in to when turning off webdashboard service
 		//fServiceManager = new ScheduledLinearServiceManager(new Scheduler(30), Set.of(statesService, fInputService, outputService, loggingService));
 
+		fSharedInputValues = fInjector.getInstance(InputValues.class);
 		fFMS = fInjector.getInstance(FMS.class);
 	}
 
@@ -67,20 +75,30 @@ public class Robot extends TimedRobot {
 
 	@Override
 	public void robotInit() {
+		// Compile the hot paths before the services start, so the warm-up never competes with the core and info threads
+		// and is done before anything can be enabled
+		fJitWarmUp.run();
 		sLogger.info("Starting services");
 		fServiceManager.start();
 		fServiceManager.awaitHealthy();
 
 		sLogger.info("********************* ALL SERVICES STARTED *******************************");
+		// Boot time with and without the class data sharing archive deploy creates, see build.gradle
+		sLogger.info("Services healthy {} ms after JVM start, class data sharing {}", ManagementFactory.getRuntimeMXBean().getUptime(),
+				System.getProperty("java.vm.info", "").contains("sharing") ? "on" : "off");
 	}
 
 	@Override
 	public void teleopInit() {
+		fFirstEnableFrames.arm();
+		publishFmsAttached();
 		fFMS.setMode(FMS.Mode.TELEOP);
 	}
 
 	@Override
 	public void autonomousInit() {
+		fFirstEnableFrames.arm();
+		publishFmsAttached();
 		fFMS.setMode(FMS.Mode.AUTONOMOUS);
 	}
 
@@ -91,6 +109,12 @@ public class Robot extends TimedRobot {
 
 	@Override
 	public void testInit() {
+		publishFmsAttached();
 		fFMS.setMode(FMS.Mode.TEST);
 	}
+
+	// Set before the mode changes so state controls know whether a match is in progress when the robot is enabled
+	private void publishFmsAttached() {
+		fSharedInputValues.setBoolean("ipb_fms_attached", DriverStation.getInstance().isFMSAttached());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+package org.team1619;
+
+import org.team1619.services.logging.LoggingService;
+import org.team1619.utilities.config.ConfigReloadService;
+import org.team1619.utilities.input.ControllerState;
+import org.team1619.utilities.overload.OverloadController;
+import org.team1619.utilities.overload.ThrottledService;
+import org.team1619.utilities.schedule.BehaviorScheduler;
+import org.team1619.utilities.services.FrameLatencyRecorder;
+import org.team1619.utilities.services.PipelinedService;
+import org.team1619.utilities.services.SequentialService;
+import org.team1619.utilities.services.ThreadTuningService;
+import org.team1619.utilities.timeseries.TimeSeriesService;
+import org.team1619.utilities.trace.FrameTracer;
+import org.team1619.utilities.trace.TracedFrame;
+import org.team1619.utilities.trace.TracedService;
+import org.uacr.services.input.InputService;
+import org.uacr.services.output.OutputService;
+import org.uacr.services.states.StatesService;
+import org.uacr.services.webdashboard.WebDashboardService;
+import org.uacr.shared.abstractions.RobotConfiguration;
+import org.uacr.utilities.injection.Injector;
+import org.uacr.utilities.services.ScheduledMultiService;
+import org.uacr.utilities.services.Scheduler;
+import org.uacr.utilities.services.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the core and info thread services for Robot and Sim
+ *
+ * The core thread reads inputs, runs the states and writes outputs every 10 ms, wrapped in the tracing, latency and
+ * overload bookkeeping. With global_timing.core_pipelined the outputs are sent on their own thread by a
+ * PipelinedService instead. The info thread logs and serves the web dashboard every 30 ms. Sim swaps in its own
+ * input service and adds the swerve plant commands, Robot adds its first enable recorder, everything else is shared.
+ */
+
+final class RobotServices {
+
+	private final Injector fInjector;
+	private final RobotConfiguration fRobotConfiguration;
+	private final FrameTracer fTracer;
+	private final OverloadController fOverloadController;
+	private final ConfigReloadService fConfigReloadService;
+	private final List<Service> fFrameBeginServices;
+	private final List<Service> fStatesEndServices;
+	private final Service fOutputService;
+
+	private Service mInputService;
+
+	RobotServices(Injector injector, RobotConfiguration robotConfiguration) {
+		fInjector = injector;
+		fRobotConfiguration = robotConfiguration;
+		fTracer = injector.getInstance(FrameTracer.class);
+		fOverloadController = injector.getInstance(OverloadController.class);
+		fConfigReloadService = injector.getInstance(ConfigReloadService.class);
+		fFrameBeginServices = new ArrayList<>();
+		fStatesEndServices = new ArrayList<>();
+		mInputService = injector.getInstance(InputService.class);
+		fOutputService = injector.getInstance(OutputService.class);
+	}
+
+	/**
+	 * Replaces the input service the core thread runs, the default is the injector's InputService
+	 */
+	RobotServices setInputService(Service inputService) {
+		mInputService = inputService;
+		return this;
+	}
+
+	/**
+	 * Adds a service that runs at the start of every core frame, before the frame latency is measured
+	 */
+	RobotServices addFrameBeginService(Service service) {
+		fFrameBeginServices.add(service);
+		return this;
+	}
+
+	/**
+	 * Adds a service that runs right after the states service in the same stage, before the outputs are sent
+	 */
+	RobotServices addStatesEndService(Service service) {
+		fStatesEndServices.add(service);
+		return this;
+	}
+
+	ScheduledMultiService buildCoreService() {
+		ControllerState controllerState = fInjector.getInstance(ControllerState.class);
+		BehaviorScheduler behaviorScheduler = fInjector.getInstance(BehaviorScheduler.class);
+		TracedFrame coreFrame = new TracedFrame(fTracer, "Core", fRobotConfiguration.getInt("global_timing", "frame_cycle_time_threshold_core_thread"));
+		boolean pipelined = fRobotConfiguration.getBoolean("global_timing", "core_pipelined");
+		FrameLatencyRecorder latencyRecorder = new FrameLatencyRecorder(pipelined ? "Pipelined core" : "Sequential core", 1000);
+
+		Service inputStage = new TracedService(fTracer, "Input service", mInputService);
+		// Controller buttons are packed into bitsets and the frame used to stagger decimated behaviors advances right
+		// before the states service runs
+		List<Service> states = new ArrayList<>();
+		states.add(controllerState.getUpdateService());
+		states.add(behaviorScheduler.getFrameService());
+		states.add(fInjector.getInstance(StatesService.class));
+		states.addAll(fStatesEndServices);
+		Service statesStage = new TracedService(fTracer, "States service", new SequentialService(states.toArray(new Service[0])));
+		Service outputStage = new TracedService(fTracer, "Output service", fOutputService);
+
+		List<Service> services = new ArrayList<>();
+		services.add(new ThreadTuningService("Core", fRobotConfiguration.getInt("global_timing", "core_thread_priority"),
+				fRobotConfiguration.getString("global_timing", "core_thread_cpus"), 10, 1000));
+		services.add(coreFrame.getBeginService());
+		services.add(fOverloadController.getBeginService());
+		services.addAll(fFrameBeginServices);
+		services.add(fConfigReloadService.getCommitService());
+		if (pipelined) {
+			// The output thread is tuned by the first service it runs, like the scheduler threads
+			services.add(new PipelinedService(latencyRecorder, inputStage, statesStage, new SequentialService(
+					new ThreadTuningService("Core output", fRobotConfiguration.getInt("global_timing", "core_thread_priority"),
+							fRobotConfiguration.getString("global_timing", "core_output_thread_cpus"), 10, 1000), outputStage)));
+		} else {
+			services.add(latencyRecorder.getBeginService());
+			services.add(inputStage);
+			services.add(statesStage);
+			services.add(outputStage);
+			services.add(latencyRecorder.getEndService());
+		}
+		services.add(new TracedService(fTracer, "Time series service", fInjector.getInstance(TimeSeriesService.class)));
+		services.add(fOverloadController.getEndService());
+		services.add(coreFrame.getEndService());
+		return new ScheduledMultiService(new Scheduler(10), services.toArray(new Service[0]));
+	}
+
+	ScheduledMultiService buildInfoService() {
+		TracedFrame infoFrame = new TracedFrame(fTracer, "Info", fRobotConfiguration.getInt("global_timing", "frame_cycle_time_threshold_info_thread"));
+
+		List<Service> services = new ArrayList<>();
+		services.add(new ThreadTuningService("Info", fRobotConfiguration.getInt("global_timing", "info_thread_priority"),
+				fRobotConfiguration.getString("global_timing", "info_thread_cpus"), 30, 1000));
+		services.add(infoFrame.getBeginService());
+		services.add(new ThrottledService(fOverloadController, new TracedService(fTracer, "Logging service", fInjector.getInstance(LoggingService.class))));
+		// TODO comment out to turn off webdashboard service
+		services.add(new ThrottledService(fOverloadController, new TracedService(fTracer, "Web dashboard service",
+				fInjector.getInstance(WebDashboardService.class))));
+		services.add(fConfigReloadService);
+		services.add(infoFrame.getEndService());
+		return new ScheduledMultiService(new Scheduler(30), services.toArray(new Service[0]));
+	}
+}
@@ -1,11 +1,9 @@
 package org.team1619;
 
-import org.team1619.services.logging.LoggingService;
+import org.team1619.sim.SimPlant;
 import org.team1619.state.SimModule;
+import org.team1619.utilities.services.SequentialService;
 import org.uacr.services.input.InputService;
-import org.uacr.services.output.OutputService;
-import org.uacr.services.states.StatesService;
-import org.uacr.services.webdashboard.WebDashboardService;
 import org.uacr.shared.concretions.SharedRobotConfiguration;
 import org.uacr.utilities.Config;
 import org.uacr.utilities.YamlConfigParser;
@@ -13,10 +11,11 @@ import org.uacr.utilities.injection.Injector;
 import org.uacr.utilities.logging.LogManager;
 import org.uacr.utilities.logging.Logger;
 import org.uacr.utilities.services.ScheduledMultiService;
-import org.uacr.utilities.services.Scheduler;
 import org.uacr.utilities.services.managers.AsyncServiceManager;
 import org.uacr.utilities.services.managers.ServiceManager;
 
+import java.lang.management.ManagementFactory;
+
 public class Sim {
 
 	private static final Logger sLogger = LogManager.getLogger(Sim.class);
@@ -34,16 +33,18 @@ public class Sim {
 		}
 
 		Injector injector = new Injector(new SimModule());
-		injector.getInstance(SharedRobotConfiguration.class).initialize();
-
-		StatesService statesService = injector.getInstance(StatesService.class);
-		InputService inputService = injector.getInstance(InputService.class);
-		OutputService outputService = injector.getInstance(OutputService.class);
-		LoggingService loggingService = injector.getInstance(LoggingService.class);
-		WebDashboardService webDashboardService = injector.getInstance(WebDashboardService.class);
-
-		ScheduledMultiService coreService = new ScheduledMultiService(new Scheduler(10), inputService, statesService, outputService);
-		ScheduledMultiService infoService = new ScheduledMultiService(new Scheduler(30), loggingService, webDashboardService);
+		SharedRobotConfiguration robotConfiguration = injector.getInstance(SharedRobotConfiguration.class);
+		robotConfiguration.initialize();
+
+		RobotServices services = new RobotServices(injector, robotConfiguration);
+		// The plant SimModule binds overwrites the simulated sensors right after they are read, so they respond to what
+		// the behaviors command, and takes the outputs as soon as the states have set them. Both run in the stages that
+		// own those values, so the plant is never touched by the pipelined output thread.
+		SimPlant plant = injector.getInstance(SimPlant.class);
+		services.setInputService(new SequentialService(injector.getInstance(InputService.class), plant))
+				.addStatesEndService(plant.getCommandService());
+		ScheduledMultiService coreService = services.buildCoreService();
+		ScheduledMultiService infoService = services.buildInfoService();
 
 		ServiceManager serviceManager = new AsyncServiceManager(coreService, infoService);
 
@@ -51,6 +52,9 @@ public class Sim {
 		serviceManager.start();
 		serviceManager.awaitHealthy();
 		sLogger.info("********************* ALL SERVICES STARTED *******************************");
+		sLogger.info("Services healthy {} ms after JVM start, class data sharing {}", ManagementFactory.getRuntimeMXBean().getUptime(),
+				System.getProperty("java.vm.info", "").contains("sharing") ? "on" : "off");
+
 		serviceManager.awaitStopped();
 		sLogger.info("All Services stopped");
 	}
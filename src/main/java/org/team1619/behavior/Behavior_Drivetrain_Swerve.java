@@ -1,5 +1,12 @@
 package org.team1619.behavior;
 
+import org.team1619.processor.BehaviorName;
+import org.team1619.utilities.input.ControllerState;
+import org.team1619.utilities.input.InputShaping;
+import org.team1619.utilities.input.JoystickShaper;
+import org.team1619.utilities.overload.OverloadController;
+import org.team1619.utilities.swerve.SwerveKinematics;
+import org.team1619.utilities.swerve.SwerveModuleOptimizer;
 import org.uacr.models.behavior.Behavior;
 import org.uacr.shared.abstractions.InputValues;
 import org.uacr.shared.abstractions.OutputValues;
@@ -15,6 +22,7 @@ import java.util.*;
  * Example behavior to copy for other behaviors
  */
 
+@BehaviorName("bh_drivetrain_swerve")
 public class Behavior_Drivetrain_Swerve implements Behavior {
 
 	private static final Logger sLogger = LogManager.getLogger(Behavior_Drivetrain_Swerve.class);
@@ -22,147 +30,196 @@ public class Behavior_Drivetrain_Swerve implements Behavior {
 
 	private final InputValues fSharedInputValues;
 	private final OutputValues fSharedOutputValues;
-	private final String fXAxis_left_js;
-	private final String fYAxis_left_js;
+	private final OverloadController fOverloadController;
+	private final ControllerState fControllerState;
+	private final int fDriverStart;
+	private final int fDriverRightStickButton;
+	private final int fDriverDpadUp;
+	private final int fDriverDpadRight;
+	private final int fDriverDpadDown;
+	private final int fDriverDpadLeft;
+	private final JoystickShaper fJoystickShaper;
+	private final int fForwardChannel;
+	private final int fStrafeChannel;
+	private final int fRotateChannel;
 	private final String fXAxis_right_js;
 	private final String fYAxis_right_js;
 
 	private final double fRobotLength;
 	private final double fRobotWidth;
 	private final double fDiameter;
+	private final double fPositionPerDegree;
 
 	private final String fNavx;
 	private Map<String, Double> fNavxValues = new HashMap<>();
 
-	public Behavior_Drivetrain_Swerve(InputValues inputValues, OutputValues outputValues, Config config, RobotConfiguration robotConfiguration) {
+	// [module][0], written by SwerveKinematics every update
+	private final double[][] fModuleSpeeds;
+	private final double[][] fModuleAngles;
+
+	private final SwerveModuleOptimizer fFrontRightOptimizer;
+	private final SwerveModuleOptimizer fFrontLeftOptimizer;
+	private final SwerveModuleOptimizer fBackLeftOptimizer;
+	private final SwerveModuleOptimizer fBackRightOptimizer;
+
+	private long mLastUpdateTime;
+	private boolean mDebugPublished;
+
+	public Behavior_Drivetrain_Swerve(InputValues inputValues, OutputValues outputValues, Config config, RobotConfiguration robotConfiguration, OverloadController overloadController, ControllerState controllerState, InputShaping inputShaping) {
 		fSharedInputValues = inputValues;
 		fSharedOutputValues = outputValues;
-
-		fXAxis_left_js = robotConfiguration.getString("global_drivetrain", "x_left_js");
-		fYAxis_left_js = robotConfiguration.getString("global_drivetrain", "y_left_js");
+		fOverloadController = overloadController;
+		fControllerState = controllerState;
+		fDriverStart = controllerState.getHandle("ipb_driver_start");
+		fDriverRightStickButton = controllerState.getHandle("ipb_driver_right_stick_button");
+		fDriverDpadUp = controllerState.getHandle("ipb_driver_dpad_up");
+		fDriverDpadRight = controllerState.getHandle("ipb_driver_dpad_right");
+		fDriverDpadDown = controllerState.getHandle("ipb_driver_dpad_down");
+		fDriverDpadLeft = controllerState.getHandle("ipb_driver_dpad_left");
+
+		fJoystickShaper = inputShaping.create("forward", "strafe", "rotate");
+		fForwardChannel = fJoystickShaper.getChannel("forward");
+		fStrafeChannel = fJoystickShaper.getChannel("strafe");
+		fRotateChannel = fJoystickShaper.getChannel("rotate");
 		fXAxis_right_js = robotConfiguration.getString("global_drivetrain", "x_right_js");
 		fYAxis_right_js = robotConfiguration.getString("global_drivetrain", "y_right_js");
 
 		fRobotLength = robotConfiguration.getDouble("global_drivetrain", "robot_length");
 		fRobotWidth = robotConfiguration.getDouble("global_drivetrain", "robot_width");
 		fDiameter = Math.sqrt ((fRobotLength * fRobotLength) + (fRobotWidth * fRobotWidth));
+		fPositionPerDegree = robotConfiguration.getDouble("global_drivetrain", "angle_position_per_degree");
 
 		fNavx = robotConfiguration.getString("global_drivetrain", "navx");
+
+		fModuleSpeeds = new double[SwerveKinematics.MODULES][1];
+		fModuleAngles = new double[SwerveKinematics.MODULES][1];
+
+		double speedScaleExponent = robotConfiguration.getDouble("global_drivetrain", "speed_scale_exponent");
+		double feedforwardLeadTime = robotConfiguration.getDouble("global_drivetrain", "steer_feedforward_lead_time");
+		double feedforwardMax = robotConfiguration.getDouble("global_drivetrain", "steer_feedforward_max");
+		fFrontRightOptimizer = new SwerveModuleOptimizer(speedScaleExponent, feedforwardLeadTime, feedforwardMax);
+		fFrontLeftOptimizer = new SwerveModuleOptimizer(speedScaleExponent, feedforwardLeadTime, feedforwardMax);
+		fBackLeftOptimizer = new SwerveModuleOptimizer(speedScaleExponent, feedforwardLeadTime, feedforwardMax);
+		fBackRightOptimizer = new SwerveModuleOptimizer(speedScaleExponent, feedforwardLeadTime, feedforwardMax);
 	}
 
 	@Override
 	public void initialize(String stateName, Config config) {
 		sLogger.debug("Entering state {}", stateName);
+
+		fFrontRightOptimizer.reset();
+		fFrontLeftOptimizer.reset();
+		fBackLeftOptimizer.reset();
+		fBackRightOptimizer.reset();
+		mLastUpdateTime = 0;
+		// Clear anything left over from before the state was entered if debug is already off
+		mDebugPublished = true;
+		fJoystickShaper.reset();
 	}
 
 	@Override
 	public void update() {
-		// Read joysticks
-		double leftJs_yAxis = fSharedInputValues.getNumeric(fYAxis_left_js);
-		double leftJs_xAxis = fSharedInputValues.getNumeric(fXAxis_left_js);
+		// Time is measured from the frame the controller state was updated for, so simulations can run faster than real time
+		long now = fControllerState.getUpdateTime();
+
+		// Read joysticks, forward, strafe and rotate are shaped as configured in input-shaping.yaml
+		fJoystickShaper.update(fSharedInputValues, now);
+		double forward = fJoystickShaper.get(fForwardChannel);
+		double strafe = fJoystickShaper.get(fStrafeChannel);
+		double rotate = fJoystickShaper.get(fRotateChannel);
 		double rightJs_xAxis = fSharedInputValues.getNumeric(fXAxis_right_js);
 		double rightJs_yAxis = fSharedInputValues.getNumeric(fYAxis_right_js);
 
-		// Define forward, strafe, point and rotate
-		double forward = leftJs_yAxis;
-		double strafe = -1 * leftJs_xAxis;
-		double point = rightJs_yAxis;
-		double rotate = -1 * rightJs_xAxis;
-
 		// Get heading from the Navx
 		fNavxValues = fSharedInputValues.getVector(fNavx);
 		double heading = fNavxValues.getOrDefault("angle", 0.0) - 90;
-		fSharedInputValues.setNumeric("opn_swerve_navx_heading", heading);
+		// Debug signals are dropped while the overload controller is shedding work, and marked stale with -9999 once
+		// when it stops publishing them
+		boolean debug = fOverloadController.isDebugEnabled();
+		if (!debug && mDebugPublished) {
+			clearDebugSignals();
+		}
+		mDebugPublished = debug;
+		if (debug) {
+			fSharedInputValues.setNumeric("opn_swerve_navx_heading", heading);
+		}
 
 		// Field centric steering - adjust joysticks based on Navx heading
-		if (fSharedInputValues.getBooleanRisingEdge("ipb_driver_start")) {
+		if (fControllerState.isRisingEdge(fDriverStart)) {
 			fSharedInputValues.setBoolean("ipb_swerve_field_centric", !fSharedInputValues.getBoolean("ipb_swerve_field_centric"));
 		}
 		if (fSharedInputValues.getBoolean("ipb_swerve_field_centric")) {
-			double radHeading = heading * Math.PI / 180;
-			double temp = forward * Math.cos(radHeading) + strafe * Math.sin(radHeading);
-			strafe = - forward * Math.sin(radHeading) + strafe * Math.cos(radHeading);
+			double temp = SwerveKinematics.fieldCentricForward(forward, strafe, heading);
+			strafe = SwerveKinematics.fieldCentricStrafe(forward, strafe, heading);
 			forward = temp;
 		}
 
 		// Use the right joystick to point the robot in a specific direction instead of spinning continuously
-		if (fSharedInputValues.getBoolean("ipb_driver_right_stick_button")){
+		if (fControllerState.isPressed(fDriverRightStickButton)){
 			// Calculate the direction the joystick is pointing
 			double rightJoystickDirection = Math.atan2(rightJs_xAxis, rightJs_yAxis) * 180 / Math.PI;
-			fSharedInputValues.setNumeric("opn_swerve_right_joystick_direction", rightJoystickDirection);
 			// Adjust rotation based on how far it needs to spin to get to the correct orientation
 			double headingDiff = heading - rightJoystickDirection;
-			fSharedInputValues.setNumeric("opn_swerve_heading_difference", headingDiff);
+			if (debug) {
+				fSharedInputValues.setNumeric("opn_swerve_right_joystick_direction", rightJoystickDirection);
+				fSharedInputValues.setNumeric("opn_swerve_heading_difference", headingDiff);
+			}
 			rotate = headingDiff / 180;
 			//todo - need way to increase roation value when close to zero to cause movement
-		} else{
+		} else if (debug) {
 			fSharedInputValues.setNumeric("opn_swerve_right_joystick_direction", -9999);
 			fSharedInputValues.setNumeric("opn_swerve_heading_difference", -9999);
 		}
 
 		// Output values for debugging
-		fSharedInputValues.setNumeric("opn_swerve_forward", forward);
-		fSharedInputValues.setNumeric("opn_swerve_strafe", strafe);
-		fSharedInputValues.setNumeric("opn_swerve_rotate", rotate);
-
-
-		double a = strafe - rotate * (fRobotLength / fDiameter);
-		double b = strafe + rotate * (fRobotLength / fDiameter);
-		double c = forward - rotate * (fRobotWidth / fDiameter);
-		double d = forward + rotate * (fRobotWidth / fDiameter);
-
-		// Calculate the wheel speed
-		double frontRightMotorSpeed = Math.sqrt ((b * b) + (d * d));
-		double frontLeftMotorSpeed = Math.sqrt ((b * b) + (c * c));
-		double backLeftMotorSpeed = Math.sqrt ((a * a) + (c * c));
-		double backRightMotorSpeed = Math.sqrt ((a * a) + (d * d));
-
-		// Calculate the wheel angle
-		double frontRightMotorAngle = Math.atan2 (b, d) * 180 / Math.PI;
-		double frontLeftMotorAngle = Math.atan2 (b, c) * 180 / Math.PI;
-		double backLeftMotorAngle = Math.atan2 (a, c) * 180 / Math.PI;
-		double backRightMotorAngle = Math.atan2 (a, d) * 180 / Math.PI;
-
-		// Normalize the wheel speed so they never exceed 1.0
-		Double[] speeds = { frontRightMotorSpeed, frontLeftMotorSpeed, backLeftMotorSpeed, backRightMotorSpeed };
-		double maxSpeed = Collections.max(Arrays.asList(speeds));
-		if(maxSpeed >  1.0) {
-			frontRightMotorSpeed /= maxSpeed;
-			frontLeftMotorSpeed /= maxSpeed;
-			backLeftMotorSpeed /= maxSpeed;
-			backRightMotorSpeed /= maxSpeed;
+		if (debug) {
+			fSharedInputValues.setNumeric("opn_swerve_forward", forward);
+			fSharedInputValues.setNumeric("opn_swerve_strafe", strafe);
+			fSharedInputValues.setNumeric("opn_swerve_rotate", rotate);
 		}
 
-		// Slow down wheel speed when wheels are changing angle and flip the wheel direction if the angle difference is greater than 90
-
-		// Get the current wheel angle
-		double ipnfra = fSharedInputValues.getNumeric("ipn_drivetrain_front_right_angle");
-		double ipnfla = fSharedInputValues.getNumeric("ipn_drivetrain_front_left_angle");
-		double ipnbla = fSharedInputValues.getNumeric("ipn_drivetrain_back_left_angle");
-		double ipnbra = fSharedInputValues.getNumeric("ipn_drivetrain_back_right_angle");
-
-		// Scale the wheel speed  based on the cube of the difference in angle
-		// Cos of zero difference is a scale factor of 1
-		// A difference in angle greater than 90 degrees causes a negative value due to cos
-		double scaleFrontRightSpeed = Math.pow((Math.cos((frontRightMotorAngle - ipnfra)*Math.PI/180)),3);
-		double scaleFrontleftSpeed = Math.pow((Math.cos((frontLeftMotorAngle - ipnfla)*Math.PI/180)),3);
-		double scaleBackLeftSpeed = Math.pow((Math.cos((backLeftMotorAngle - ipnbla)*Math.PI/180)),3);
-		double scaleBackRightSpeed = Math.pow((Math.cos((backRightMotorAngle - ipnbra)*Math.PI/180)),3);
-
-		// If the scale is negative, flip the wheel angle 180 degrees as the wheel speed will be negative
-		if(scaleFrontRightSpeed < 0){ frontRightMotorAngle += 180; }
-		if(scaleFrontleftSpeed < 0){ frontLeftMotorAngle += 180; }
-		if(scaleBackLeftSpeed < 0){ backLeftMotorAngle += 180; }
-		if(scaleBackRightSpeed < 0){ backRightMotorAngle += 180; }
-
-		// Scale the wheel speed
-		frontRightMotorSpeed = frontRightMotorSpeed * scaleFrontRightSpeed;
-		frontLeftMotorSpeed = frontLeftMotorSpeed * scaleFrontleftSpeed;
-		backLeftMotorSpeed = backLeftMotorSpeed * scaleBackLeftSpeed;
-		backRightMotorSpeed = backRightMotorSpeed * scaleBackRightSpeed;
-
-		// Rotate around one wheel
-		if (fSharedInputValues.getBoolean("ipb_driver_dpad_up")){
+
+		// Calculate the wheel speeds and angles, the speeds are normalized so they never exceed 1.0
+		SwerveKinematics.toModules(forward, strafe, rotate, fRobotLength / fDiameter, fRobotWidth / fDiameter, fModuleSpeeds, fModuleAngles, 0);
+		double frontRightMotorSpeed = fModuleSpeeds[SwerveKinematics.FRONT_RIGHT][0];
+		double frontLeftMotorSpeed = fModuleSpeeds[SwerveKinematics.FRONT_LEFT][0];
+		double backLeftMotorSpeed = fModuleSpeeds[SwerveKinematics.BACK_LEFT][0];
+		double backRightMotorSpeed = fModuleSpeeds[SwerveKinematics.BACK_RIGHT][0];
+		double frontRightMotorAngle = fModuleAngles[SwerveKinematics.FRONT_RIGHT][0];
+		double frontLeftMotorAngle = fModuleAngles[SwerveKinematics.FRONT_LEFT][0];
+		double backLeftMotorAngle = fModuleAngles[SwerveKinematics.BACK_LEFT][0];
+		double backRightMotorAngle = fModuleAngles[SwerveKinematics.BACK_RIGHT][0];
+
+		// Get the current wheel angle from the steering encoders, the position setpoints are in the same zeroed and
+		// continuous frame so the wrapped analog angles can't be used here
+		double ipnfra = getSteeringAngle("ipn_drivetrain_front_right_angle_position");
+		double ipnfla = getSteeringAngle("ipn_drivetrain_front_left_angle_position");
+		double ipnbla = getSteeringAngle("ipn_drivetrain_back_left_angle_position");
+		double ipnbra = getSteeringAngle("ipn_drivetrain_back_right_angle_position");
+
+		double deltaTime = mLastUpdateTime == 0 ? 0 : (now - mLastUpdateTime) / 1_000_000_000.0;
+		mLastUpdateTime = now;
+
+		// Turn each wheel the shortest way to its target, reversing the wheel when that is closer,
+		// and slow it down based on the cube of the remaining difference in angle
+		fFrontRightOptimizer.optimize(frontRightMotorAngle, frontRightMotorSpeed, ipnfra, deltaTime);
+		fFrontLeftOptimizer.optimize(frontLeftMotorAngle, frontLeftMotorSpeed, ipnfla, deltaTime);
+		fBackLeftOptimizer.optimize(backLeftMotorAngle, backLeftMotorSpeed, ipnbla, deltaTime);
+		fBackRightOptimizer.optimize(backRightMotorAngle, backRightMotorSpeed, ipnbra, deltaTime);
+
+		frontRightMotorSpeed = fFrontRightOptimizer.getSpeed();
+		frontLeftMotorSpeed = fFrontLeftOptimizer.getSpeed();
+		backLeftMotorSpeed = fBackLeftOptimizer.getSpeed();
+		backRightMotorSpeed = fBackRightOptimizer.getSpeed();
+		frontRightMotorAngle = fFrontRightOptimizer.getAngle();
+		frontLeftMotorAngle = fFrontLeftOptimizer.getAngle();
+		backLeftMotorAngle = fBackLeftOptimizer.getAngle();
+		backRightMotorAngle = fBackRightOptimizer.getAngle();
+
+		// Rotate around one wheel, these are fixed setpoints so they bypass the optimizer and it starts again from
+		// the measured angles once the d-pad is released
+		boolean pivoting = true;
+		if (fControllerState.isPressed(fDriverDpadUp)){
 			// Spin around left front wheel
 			frontRightMotorSpeed = rightJs_xAxis * (fRobotWidth / fDiameter);
 			frontLeftMotorSpeed = 0;
@@ -172,7 +229,7 @@ public class Behavior_Drivetrain_Swerve implements Behavior {
 			frontLeftMotorAngle = 0;
 			backLeftMotorAngle = 90;
 			backRightMotorAngle = 135;
-		} else if (fSharedInputValues.getBoolean("ipb_driver_dpad_right")){
+		} else if (fControllerState.isPressed(fDriverDpadRight)){
 			// Spin around right front wheel
 			frontRightMotorSpeed = 0;
 			frontLeftMotorSpeed = rightJs_xAxis * (fRobotWidth / fDiameter);
@@ -183,7 +240,7 @@ public class Behavior_Drivetrain_Swerve implements Behavior {
 			backLeftMotorAngle = 45;
 			backRightMotorAngle = 90;
 
-		} else if (fSharedInputValues.getBoolean("ipb_driver_dpad_down")){
+		} else if (fControllerState.isPressed(fDriverDpadDown)){
 			// Spin around right back wheel
 			frontRightMotorSpeed = rightJs_xAxis * (fRobotLength / fDiameter);
 			frontLeftMotorSpeed = rightJs_xAxis;
@@ -193,7 +250,7 @@ public class Behavior_Drivetrain_Swerve implements Behavior {
 			frontLeftMotorAngle = -45;
 			backLeftMotorAngle = 0;
 			backRightMotorAngle = 0;
-		} else if (fSharedInputValues.getBoolean("ipb_driver_dpad_left")){
+		} else if (fControllerState.isPressed(fDriverDpadLeft)){
 			// Spin around left back wheel
 			frontRightMotorSpeed = rightJs_xAxis;
 			frontLeftMotorSpeed = rightJs_xAxis * (fRobotLength / fDiameter);
@@ -203,6 +260,18 @@ public class Behavior_Drivetrain_Swerve implements Behavior {
 			frontLeftMotorAngle = -90;
 			backLeftMotorAngle = 0;
 			backRightMotorAngle = 180;
+		} else {
+			pivoting = false;
+		}
+		if (pivoting) {
+			frontRightMotorAngle = SwerveModuleOptimizer.nearest(frontRightMotorAngle, ipnfra);
+			frontLeftMotorAngle = SwerveModuleOptimizer.nearest(frontLeftMotorAngle, ipnfla);
+			backLeftMotorAngle = SwerveModuleOptimizer.nearest(backLeftMotorAngle, ipnbla);
+			backRightMotorAngle = SwerveModuleOptimizer.nearest(backRightMotorAngle, ipnbra);
+			fFrontRightOptimizer.reset();
+			fFrontLeftOptimizer.reset();
+			fBackLeftOptimizer.reset();
+			fBackRightOptimizer.reset();
 		}
 
 		// Set the motors
@@ -218,6 +287,20 @@ public class Behavior_Drivetrain_Swerve implements Behavior {
 		fSharedOutputValues.setNumeric("opn_drivetrain_back_right_angle", "position", backRightMotorAngle);
 	}
 
+	// Continuous module angle in degrees since the module was zeroed
+	private double getSteeringAngle(String anglePositionInput) {
+		return fSharedInputValues.getNumeric(anglePositionInput) / fPositionPerDegree;
+	}
+
+	private void clearDebugSignals() {
+		fSharedInputValues.setNumeric("opn_swerve_navx_heading", -9999);
+		fSharedInputValues.setNumeric("opn_swerve_right_joystick_direction", -9999);
+		fSharedInputValues.setNumeric("opn_swerve_heading_difference", -9999);
+		fSharedInputValues.setNumeric("opn_swerve_forward", -9999);
+		fSharedInputValues.setNumeric("opn_swerve_strafe", -9999);
+		fSharedInputValues.setNumeric("opn_swerve_rotate", -9999);
+	}
+
 	@Override
 	public void dispose() {
 		fSharedOutputValues.setNumeric("opn_drivetrain_front_right_speed", "percent", 0);
@@ -1,5 +1,6 @@
 package org.team1619.behavior;
 
+import org.team1619.processor.BehaviorName;
 import org.uacr.models.behavior.Behavior;
 import org.uacr.shared.abstractions.InputValues;
 import org.uacr.shared.abstractions.OutputValues;
@@ -13,35 +14,62 @@ import java.util.*;
 
 /**
  * Zeros the swerve modules
+ *
+ * Each module converges on its own with its own timeout. A module whose analog angle still agrees with its motor
+ * controller position and its saved offset is not zeroed again, RobotStatus loads and saves the offsets and publishes
+ * the comparison. Nothing is decided until the offsets have been loaded.
  */
 
+@BehaviorName("bh_drivetrain_zero")
 public class Behavior_Drivetrain_Zero implements Behavior {
 
 	private static final Logger sLogger = LogManager.getLogger(Behavior_Drivetrain_Zero.class);
 	private static final Set<String> sSubsystems = Set.of("ss_drivetrain");
+	private static final String[] sModules = {"front_right", "front_left", "back_left", "back_right"};
+
+	private static final int ZEROING = 0;
+	private static final int ZEROED = 1;
+	private static final int RESTORED = 2;
+	private static final int TIMED_OUT = 3;
+	private static final String[] sStatusNames = {"zeroing", "zeroed", "restored", "timed_out"};
 
 	private final InputValues fSharedInputValues;
 	private final OutputValues fSharedOutputValues;
 
 	private final Timer fTimeoutTimer;
+	private final Timer[] fModuleTimeoutTimers;
+	private final int[] fModuleStatus;
+	private boolean mModulesChecked;
 	private int mTimeoutTime;
+	private int mModuleTimeoutTime;
 	private double mZeroingThreshold;
+	private long mStartTime;
 
 	public Behavior_Drivetrain_Zero(InputValues inputValues, OutputValues outputValues, Config config, RobotConfiguration robotConfiguration) {
 		fSharedInputValues = inputValues;
 		fSharedOutputValues = outputValues;
 
 		fTimeoutTimer = new Timer();
+		fModuleTimeoutTimers = new Timer[sModules.length];
+		for (int m = 0; m < sModules.length; m++) {
+			fModuleTimeoutTimers[m] = new Timer();
+		}
+		fModuleStatus = new int[sModules.length];
 		mTimeoutTime = 500;
+		mModuleTimeoutTime = 500;
 		mZeroingThreshold = 0.1;
+		mModulesChecked = false;
 	}
 
 	@Override
 	public void initialize(String stateName, Config config) {
 		sLogger.debug("Entering state {}", stateName);
+
 		mTimeoutTime = config.getInt("timeout_time");
+		mModuleTimeoutTime = config.getInt("module_timeout_time");
 		mZeroingThreshold = config.getDouble("zeroing_threshold");
 
+		mStartTime = System.currentTimeMillis();
 		fTimeoutTimer.reset();
 		fTimeoutTimer.start(mTimeoutTime);
 
@@ -54,34 +82,51 @@ public class Behavior_Drivetrain_Zero implements Behavior {
 		fSharedOutputValues.setNumeric("opn_drivetrain_front_left_angle", "percent", 0);
 		fSharedOutputValues.setNumeric("opn_drivetrain_back_right_angle", "percent", 0);
 		fSharedOutputValues.setNumeric("opn_drivetrain_back_left_angle", "percent", 0);
+
+		for (int m = 0; m < sModules.length; m++) {
+			setModuleStatus(m, ZEROING);
+		}
+		mModulesChecked = false;
 	}
 
 	@Override
 	public void update() {
 		if (!fSharedInputValues.getBoolean("ipb_drivetrain_has_been_zeroed")) {
+			if (!mModulesChecked) {
+				if (!fSharedInputValues.getBoolean("ipb_drivetrain_zero_offsets_loaded")) {
+					return;
+				}
+				checkModules();
+			}
+
+			boolean allDone = true;
+			for (int m = 0; m < sModules.length; m++) {
+				if (fModuleStatus[m] != ZEROING) {
+					continue;
+				}
+
+				String module = sModules[m];
+				if (Math.abs(getPosition(module)) < mZeroingThreshold) {
+					sLogger.debug("Drivetrain Zero -> {} Zeroed", module);
+					setModuleStatus(m, ZEROED);
+				} else if (fModuleTimeoutTimers[m].isDone() || fTimeoutTimer.isDone()) {
+					sLogger.error("Drivetrain Zero -> {} Timed Out", module);
+					fModuleTimeoutTimers[m].reset();
+					setModuleStatus(m, TIMED_OUT);
+				} else {
+					fSharedOutputValues.setOutputFlag("opn_drivetrain_" + module + "_angle", "zero");
+					allDone = false;
+				}
+			}
 
-			//Todo - Should we do this every frame or move them into Init()?
-			fSharedOutputValues.setOutputFlag("opn_drivetrain_front_right_angle", "zero");
-			fSharedOutputValues.setOutputFlag("opn_drivetrain_front_left_angle", "zero");
-			fSharedOutputValues.setOutputFlag("opn_drivetrain_back_right_angle", "zero");
-			fSharedOutputValues.setOutputFlag("opn_drivetrain_back_left_angle", "zero");
-
-			if ((Math.abs(fSharedInputValues.getNumeric("ipn_drivetrain_front_right_angle_position")) < mZeroingThreshold)
-				&& (Math.abs(fSharedInputValues.getNumeric("ipn_drivetrain_front_left_angle_position")) < mZeroingThreshold)
-				&& (Math.abs(fSharedInputValues.getNumeric("ipn_drivetrain_back_left_angle_position")) < mZeroingThreshold)
-				&& (Math.abs(fSharedInputValues.getNumeric("ipn_drivetrain_back_left_angle_position")) < mZeroingThreshold))
-			{
-				sLogger.debug("Drivetrain Zero -> Zeroed");
+			if (allDone) {
+				long zeroTime = System.currentTimeMillis() - mStartTime;
+				sLogger.debug("Drivetrain Zero -> Zeroed in {} ms", zeroTime);
+				fSharedInputValues.setNumeric("opn_drivetrain_zero_time", zeroTime);
 				//Todo - Is this correct? What is it for? Why is it false?
 				//fSharedInputValues.setBoolean("ipb_odometry_has_been_zeroed", false);
 				fSharedInputValues.setBoolean("ipb_drivetrain_has_been_zeroed", true);
-				return;
-			}
-
-			if (fTimeoutTimer.isDone()) {
-				sLogger.error("Drivetrain Zero -> Timed Out");
 				fTimeoutTimer.reset();
-				fSharedInputValues.setBoolean("ipb_drivetrain_has_been_zeroed", true);
 			}
 		}
 	}
@@ -102,11 +147,34 @@ public class Behavior_Drivetrain_Zero implements Behavior {
 
 	@Override
 	public boolean isDone() {
-		return fSharedInputValues.getBoolean("ipb_drivetrain_has_been_zeroed") || fTimeoutTimer.isDone();
+		return fSharedInputValues.getBoolean("ipb_drivetrain_has_been_zeroed");
 	}
 
 	@Override
 	public Set<String> getSubsystems() {
 		return sSubsystems;
 	}
-}
\ No newline at end of file
+
+	// Skip any module whose saved offset still agrees with its sensors and start the timeouts of the rest
+	private void checkModules() {
+		mModulesChecked = true;
+		for (int m = 0; m < sModules.length; m++) {
+			if (fSharedInputValues.getBoolean("ipb_drivetrain_" + sModules[m] + "_zero_offset_consistent")) {
+				setModuleStatus(m, RESTORED);
+			} else {
+				fModuleTimeoutTimers[m].reset();
+				fModuleTimeoutTimers[m].start(mModuleTimeoutTime);
+			}
+		}
+	}
+
+	private void setModuleStatus(int module, int status) {
+		fModuleStatus[module] = status;
+		fSharedInputValues.setBoolean("ipb_drivetrain_" + sModules[module] + "_zeroed", status == ZEROED || status == RESTORED);
+		fSharedInputValues.setString("ips_drivetrain_" + sModules[module] + "_zero_status", sStatusNames[status]);
+	}
+
+	private double getPosition(String module) {
+		return fSharedInputValues.getNumeric("ipn_drivetrain_" + module + "_angle_position");
+	}
+}
@@ -0,0 +1,33 @@
+package org.team1619.modelfactory;
+
+import org.uacr.models.exceptions.ConfigurationException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The objects behavior constructors can ask for, looked up by type from the generated BehaviorRegistry
+ */
+
+public class BehaviorDependencies {
+
+	private final Map<Class<?>, Object> fDependencies;
+
+	public BehaviorDependencies() {
+		fDependencies = new HashMap<>();
+	}
+
+	public <T> BehaviorDependencies add(Class<T> type, T dependency) {
+		fDependencies.put(type, dependency);
+		return this;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T get(Class<T> type) {
+		Object dependency = fDependencies.get(type);
+		if (dependency == null) {
+			throw new ConfigurationException("No behavior dependency of type " + type.getName());
+		}
+		return (T) dependency;
+	}
+}
@@ -1,6 +1,16 @@
 package org.team1619.modelfactory;
 
-import org.team1619.behavior.*;
+import org.team1619.utilities.config.LiveConfiguration;
+import org.team1619.utilities.config.ReloadingBehavior;
+import org.team1619.utilities.input.ControllerState;
+import org.team1619.utilities.input.InputShaping;
+import org.team1619.utilities.overload.OverloadController;
+import org.team1619.utilities.overload.SheddableBehavior;
+import org.team1619.utilities.schedule.BehaviorScheduler;
+import org.team1619.utilities.schedule.DecimatedBehavior;
+import org.team1619.utilities.schedule.DecimationSlot;
+import org.team1619.utilities.trace.FrameTracer;
+import org.team1619.utilities.trace.TracedBehavior;
 import org.uacr.models.behavior.Behavior;
 import org.uacr.models.exceptions.ConfigurationException;
 import org.uacr.robot.AbstractModelFactory;
@@ -16,32 +26,57 @@ public class ModelFactory_Behaviors extends AbstractModelFactory {
 
 	private static final Logger sLogger = LogManager.getLogger(ModelFactory_Behaviors.class);
 
-	private final InputValues fSharedInputValues;
-	private final OutputValues fSharedOutputValues;
-	private final RobotConfiguration fRobotConfiguration;
+	private final LiveConfiguration fLiveConfiguration;
+	private final RobotConfiguration fLiveRobotConfiguration;
+	private final FrameTracer fTracer;
+	private final OverloadController fOverloadController;
+	private final BehaviorScheduler fScheduler;
+	private final ControllerState fControllerState;
+	private final BehaviorDependencies fDependencies;
 
-	public ModelFactory_Behaviors(InputValues inputValues, OutputValues outputValues, RobotConfiguration robotConfiguration, ObjectsDirectory objectsDirectory) {
+	public ModelFactory_Behaviors(InputValues inputValues, OutputValues outputValues, RobotConfiguration robotConfiguration, ObjectsDirectory objectsDirectory, LiveConfiguration liveConfiguration, FrameTracer tracer, OverloadController overloadController, ControllerState controllerState, InputShaping inputShaping, BehaviorScheduler scheduler) {
 		super(inputValues, outputValues, robotConfiguration, objectsDirectory);
-		fSharedInputValues = inputValues;
-		fSharedOutputValues = outputValues;
-		fRobotConfiguration = robotConfiguration;
+		fLiveConfiguration = liveConfiguration;
+		fLiveRobotConfiguration = liveConfiguration.overlay(robotConfiguration);
+		fTracer = tracer;
+		fOverloadController = overloadController;
+		fScheduler = scheduler;
+		fControllerState = controllerState;
+		fDependencies = new BehaviorDependencies()
+				.add(InputValues.class, inputValues)
+				.add(OutputValues.class, outputValues)
+				.add(RobotConfiguration.class, fLiveRobotConfiguration)
+				.add(OverloadController.class, overloadController)
+				.add(ControllerState.class, controllerState)
+				.add(InputShaping.class, inputShaping);
 	}
 
 	public Behavior createBehavior(String name, Config config) {
 		sLogger.trace("Creating behavior '{}' of type '{}' with config '{}'", name, config.getType(), config.getData());
 
-		switch (name) {
-
-			case "bh_drivetrain_zero":
-				return new Behavior_Drivetrain_Zero(fSharedInputValues, fSharedOutputValues, config, fRobotConfiguration);
-
-			case "bh_drivetrain_swerve":
-				return new Behavior_Drivetrain_Swerve(fSharedInputValues, fSharedOutputValues, config, fRobotConfiguration);
+		// Behaviors are created again with the live values when their configuration is reloaded, along with the
+		// decimation and shedding that are set from the same configuration
+		DecimationSlot decimationSlot = new DecimationSlot(fScheduler, fControllerState, name);
+		Behavior behavior = new ReloadingBehavior(fLiveConfiguration, behaviorConfig -> buildBehavior(name, behaviorConfig, decimationSlot), config);
+		return fTracer.isEnabled() ? new TracedBehavior(fTracer, name, behavior) : behavior;
+	}
 
-			// State not found
-			default:
-				throw new ConfigurationException("Behavior " + name + " does not exist.");
+	private Behavior buildBehavior(String name, Config config, DecimationSlot decimationSlot) {
+		// Behaviors register themselves with @BehaviorName, the registry is generated at compile time
+		Behavior behavior = BehaviorRegistry.create(name, config, fDependencies);
+		// Behaviors that do not need the full core rate set update_divisor in their behavior_config
+		int updateDivisor = config.getInt("update_divisor", 1);
+		if (updateDivisor < 1) {
+			throw new ConfigurationException("update_divisor for behavior " + name + " must be at least 1");
 		}
+		// A rebuild with a divisor of 1 gives back the phase the behavior had
+		decimationSlot.reservePhase(updateDivisor);
+		if (updateDivisor > 1) {
+			behavior = new DecimatedBehavior(fScheduler, fControllerState, decimationSlot, updateDivisor, behavior);
+		}
+		if (fOverloadController.isNonEssential(fLiveRobotConfiguration, name)) {
+			behavior = new SheddableBehavior(fOverloadController, behavior);
+		}
+		return behavior;
 	}
-
-}
\ No newline at end of file
+}
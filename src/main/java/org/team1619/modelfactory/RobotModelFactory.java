@@ -1,6 +1,12 @@
 package org.team1619.modelfactory;
 
 import org.team1619.robot.AbstractRobotModelFactory;
+import org.team1619.utilities.config.LiveConfiguration;
+import org.team1619.utilities.input.ControllerState;
+import org.team1619.utilities.input.InputShaping;
+import org.team1619.utilities.overload.OverloadController;
+import org.team1619.utilities.schedule.BehaviorScheduler;
+import org.team1619.utilities.trace.FrameTracer;
 import org.uacr.robot.AbstractModelFactory;
 import org.uacr.shared.abstractions.*;
 import org.uacr.utilities.injection.Inject;
@@ -12,10 +18,10 @@ public class RobotModelFactory extends AbstractModelFactory {
 	private static final Logger sLogger = LogManager.getLogger(RobotModelFactory.class);
 
 	@Inject
-	public RobotModelFactory(HardwareFactory hardwareFactory, InputValues inputValues, OutputValues outputValues, RobotConfiguration robotConfiguration, ObjectsDirectory objectsDirectory) {
+	public RobotModelFactory(HardwareFactory hardwareFactory, InputValues inputValues, OutputValues outputValues, RobotConfiguration robotConfiguration, ObjectsDirectory objectsDirectory, LiveConfiguration liveConfiguration, FrameTracer tracer, OverloadController overloadController, ControllerState controllerState, InputShaping inputShaping, BehaviorScheduler scheduler) {
 		super(inputValues, outputValues, robotConfiguration, objectsDirectory);
 		registerModelFactory(new AbstractRobotModelFactory(hardwareFactory, inputValues, outputValues, robotConfiguration, objectsDirectory));
-		registerModelFactory(new ModelFactory_Behaviors(inputValues, outputValues, robotConfiguration, objectsDirectory));
+		registerModelFactory(new ModelFactory_Behaviors(inputValues, outputValues, robotConfiguration, objectsDirectory, liveConfiguration, tracer, overloadController, controllerState, inputShaping, scheduler));
 	}
 
 }
\ No newline at end of file
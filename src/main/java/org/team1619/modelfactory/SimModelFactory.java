@@ -1,6 +1,12 @@
 package org.team1619.modelfactory;
 
 import org.team1619.robot.AbstractSimModelFactory;
+import org.team1619.utilities.config.LiveConfiguration;
+import org.team1619.utilities.input.ControllerState;
+import org.team1619.utilities.input.InputShaping;
+import org.team1619.utilities.overload.OverloadController;
+import org.team1619.utilities.schedule.BehaviorScheduler;
+import org.team1619.utilities.trace.FrameTracer;
 import org.uacr.shared.abstractions.*;
 import org.uacr.utilities.injection.Inject;
 import org.uacr.utilities.logging.LogManager;
@@ -11,9 +17,9 @@ public class SimModelFactory extends AbstractSimModelFactory {
 	private static final Logger sLogger = LogManager.getLogger(SimModelFactory.class);
 
 	@Inject
-	public SimModelFactory(HardwareFactory hardwareFactory, EventBus eventBus, InputValues inputValues, OutputValues outputValues, RobotConfiguration robotConfiguration, ObjectsDirectory objectsDirectory) {
+	public SimModelFactory(HardwareFactory hardwareFactory, EventBus eventBus, InputValues inputValues, OutputValues outputValues, RobotConfiguration robotConfiguration, ObjectsDirectory objectsDirectory, LiveConfiguration liveConfiguration, FrameTracer tracer, OverloadController overloadController, ControllerState controllerState, InputShaping inputShaping, BehaviorScheduler scheduler) {
 		super(eventBus, hardwareFactory, inputValues, outputValues, robotConfiguration, objectsDirectory);
 		registerModelFactory(new AbstractSimModelFactory(eventBus, hardwareFactory, inputValues, outputValues, robotConfiguration, objectsDirectory));
-		registerModelFactory(new ModelFactory_Behaviors(inputValues, outputValues, robotConfiguration, objectsDirectory));
+		registerModelFactory(new ModelFactory_Behaviors(inputValues, outputValues, robotConfiguration, objectsDirectory, liveConfiguration, tracer, overloadController, controllerState, inputShaping, scheduler));
 	}
 }
\ No newline at end of file
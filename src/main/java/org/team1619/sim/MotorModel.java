@@ -0,0 +1,48 @@
+package org.team1619.sim;
+
+/**
+ * First order model of a motor driving a mechanism
+ *
+ * At a constant percent output the mechanism rate approaches output * free speed with the given time constant.
+ * Rates are in mechanism units per second, positions in mechanism units.
+ */
+
+public class MotorModel {
+
+	private final double fFreeSpeed;
+	private final double fTimeConstant;
+
+	private double mPosition;
+	private double mRate;
+
+	/**
+	 * @param freeSpeed the mechanism rate at full output
+	 * @param timeConstant seconds for the rate to reach 63% of a new target
+	 */
+	public MotorModel(double freeSpeed, double timeConstant) {
+		fFreeSpeed = freeSpeed;
+		fTimeConstant = timeConstant;
+	}
+
+	public void reset(double position) {
+		mPosition = position;
+		mRate = 0;
+	}
+
+	/**
+	 * Advances the model, output is clamped to [-1, 1]
+	 */
+	public void step(double output, double deltaTime) {
+		double targetRate = Math.max(-1, Math.min(1, output)) * fFreeSpeed;
+		mRate += (targetRate - mRate) * Math.min(1.0, deltaTime / fTimeConstant);
+		mPosition += mRate * deltaTime;
+	}
+
+	public double getPosition() {
+		return mPosition;
+	}
+
+	public double getRate() {
+		return mRate;
+	}
+}
@@ -0,0 +1,27 @@
+package org.team1619.sim;
+
+import org.uacr.utilities.services.Service;
+
+/**
+ * Leaves every sensor to the generic simulated hardware
+ */
+
+public class NoPlant implements SimPlant {
+
+	@Override
+	public void startUp() {
+	}
+
+	@Override
+	public void runOneIteration() {
+	}
+
+	@Override
+	public void shutDown() {
+	}
+
+	@Override
+	public Service getCommandService() {
+		return this;
+	}
+}
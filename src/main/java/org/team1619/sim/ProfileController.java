@@ -0,0 +1,57 @@
+package org.team1619.sim;
+
+/**
+ * Position loop with the same gains as a closed-loop-profiles.yaml profile
+ *
+ * The integral is cleared whenever the error is outside integral_range and its contribution is limited to
+ * max_integral. The output is limited to max_output.
+ */
+
+public class ProfileController {
+
+	private final double fF;
+	private final double fP;
+	private final double fI;
+	private final double fD;
+	private final double fMaxOutput;
+	private final double fIntegralRange;
+	private final double fMaxIntegral;
+
+	private double mIntegral;
+	private double mLastError;
+	private boolean mHasLastError;
+
+	public ProfileController(double f, double p, double i, double d, double maxOutput, double integralRange, double maxIntegral) {
+		fF = f;
+		fP = p;
+		fI = i;
+		fD = d;
+		fMaxOutput = maxOutput;
+		fIntegralRange = integralRange;
+		fMaxIntegral = maxIntegral;
+	}
+
+	public void reset() {
+		mIntegral = 0;
+		mLastError = 0;
+		mHasLastError = false;
+	}
+
+	public double update(double setpoint, double position, double deltaTime) {
+		double error = setpoint - position;
+
+		if (Math.abs(error) < fIntegralRange) {
+			mIntegral += error * deltaTime;
+		} else {
+			mIntegral = 0;
+		}
+		double integral = Math.max(-fMaxIntegral, Math.min(fMaxIntegral, fI * mIntegral));
+
+		double derivative = mHasLastError && deltaTime > 0 ? (error - mLastError) / deltaTime : 0;
+		mLastError = error;
+		mHasLastError = true;
+
+		double output = fF * setpoint + fP * error + integral + fD * derivative;
+		return Math.max(-fMaxOutput, Math.min(fMaxOutput, output));
+	}
+}
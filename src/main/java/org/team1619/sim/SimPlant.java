@@ -0,0 +1,15 @@
+package org.team1619.sim;
+
+import org.uacr.utilities.services.Service;
+
+/**
+ * A model that drives simulated sensors from the commanded outputs, SimModule binds the one Sim runs
+ *
+ * The plant runs right after the input service and overwrites the sensors it models. getCommandService() runs right
+ * after the states service and takes the commands, so the plant is only ever touched by the core scheduler thread.
+ */
+
+public interface SimPlant extends Service {
+
+	Service getCommandService();
+}
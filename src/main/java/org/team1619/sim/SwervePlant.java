@@ -0,0 +1,240 @@
+package org.team1619.sim;
+
+import org.team1619.utilities.swerve.SwerveKinematics;
+import org.team1619.utilities.swerve.SwerveModuleOptimizer;
+import org.uacr.models.exceptions.ConfigurationException;
+import org.uacr.shared.abstractions.RobotConfiguration;
+import org.uacr.utilities.Config;
+import org.uacr.utilities.YamlConfigParser;
+
+import java.util.Map;
+
+/**
+ * Physics model of a swerve drivetrain
+ *
+ * Each module has a drive and a steering MotorModel. The steering motor runs the position loop of the
+ * global_drivetrain steer_profile in closed-loop-profiles.yaml, the profile the real steering motor controllers use,
+ * and everything else about the plant is a fixed physical parameter from global_sim. The chassis velocity is the least squares fit of the module velocity vectors, and the heading
+ * integrates its rotation rate. Everything advances in fixed sub-steps and lives in preallocated arrays, so step()
+ * does not allocate. Commands are held until they are set again, like a motor controller holds its last output.
+ *
+ * Module angles are in degrees with 0 along the robot's forward axis, drive rates are in the units of drive_free_speed.
+ */
+
+public class SwervePlant {
+
+	private static final int MODULES = SwerveKinematics.MODULES;
+
+	private final MotorModel[] fDriveMotors;
+	private final MotorModel[] fSteerMotors;
+	private final ProfileController[] fSteerControllers;
+	// Module positions from the center of the robot, x forward and y left
+	private final double[] fModuleX;
+	private final double[] fModuleY;
+	private final double fRadiusSquaredSum;
+	private final double fSubStepTime;
+
+	// Commands, speed in percent output and angle in degrees or percent output
+	private final double[] fSpeeds;
+	private final double[] fAngles;
+	private final boolean[] fAnglePositionControl;
+	private final boolean[] fZeroRequests;
+
+	private final double[] fEncoderOffsets;
+	private final double[] fAnalogOffsets;
+	private double mHeading;
+	private double mX;
+	private double mY;
+
+	/**
+	 * The plant described by the global_drivetrain and global_sim categories steered by the given position profile, the
+	 * simulator and the offline tools all build it this way
+	 */
+	public static SwervePlant fromConfiguration(RobotConfiguration robotConfiguration, Config steerProfile) {
+		return new SwervePlant(robotConfiguration.getDouble("global_drivetrain", "robot_length"), robotConfiguration.getDouble("global_drivetrain", "robot_width"),
+				robotConfiguration.getDouble("global_sim", "drive_free_speed"), robotConfiguration.getDouble("global_sim", "drive_time_constant"),
+				robotConfiguration.getDouble("global_sim", "steer_free_speed"), robotConfiguration.getDouble("global_sim", "steer_time_constant"),
+				new double[]{steerProfile.getDouble("f"), steerProfile.getDouble("p"), steerProfile.getDouble("i"), steerProfile.getDouble("d"),
+						steerProfile.getDouble("max_output"), steerProfile.getDouble("integral_range"), steerProfile.getDouble("max_integral")},
+				robotConfiguration.getDouble("global_sim", "sub_step_rate"));
+	}
+
+	/**
+	 * The position profile of the global_drivetrain steer_profile in closed-loop-profiles.yaml
+	 */
+	@SuppressWarnings("unchecked")
+	public static Config loadSteerProfile(RobotConfiguration robotConfiguration) {
+		String name = robotConfiguration.getString("global_drivetrain", "steer_profile");
+		YamlConfigParser parser = new YamlConfigParser();
+		parser.load("closed-loop-profiles.yaml");
+		Object profiles = parser.getConfig(name).getData().get("profiles");
+		Object position = profiles instanceof Map ? ((Map<String, Object>) profiles).get("position") : null;
+		if (!(position instanceof Map)) {
+			throw new ConfigurationException("Closed loop profile " + name + " must have a position profile");
+		}
+		return new Config(name, (Map<String, Object>) position);
+	}
+
+	/**
+	 * @param steerGains f, p, i, d, max_output, integral_range and max_integral of the steering position loop
+	 * @param subStepRate integration steps per second
+	 */
+	public SwervePlant(double robotLength, double robotWidth, double driveFreeSpeed, double driveTimeConstant, double steerFreeSpeed,
+	                   double steerTimeConstant, double[] steerGains, double subStepRate) {
+		fDriveMotors = new MotorModel[MODULES];
+		fSteerMotors = new MotorModel[MODULES];
+		fSteerControllers = new ProfileController[MODULES];
+		for (int m = 0; m < MODULES; m++) {
+			fDriveMotors[m] = new MotorModel(driveFreeSpeed, driveTimeConstant);
+			fSteerMotors[m] = new MotorModel(steerFreeSpeed, steerTimeConstant);
+			fSteerControllers[m] = new ProfileController(steerGains[0], steerGains[1], steerGains[2], steerGains[3], steerGains[4], steerGains[5], steerGains[6]);
+		}
+
+		// Front right, front left, back left, back right
+		fModuleX = new double[]{robotLength / 2, robotLength / 2, -robotLength / 2, -robotLength / 2};
+		fModuleY = new double[]{-robotWidth / 2, robotWidth / 2, robotWidth / 2, -robotWidth / 2};
+		double radiusSquaredSum = 0;
+		for (int m = 0; m < MODULES; m++) {
+			radiusSquaredSum += fModuleX[m] * fModuleX[m] + fModuleY[m] * fModuleY[m];
+		}
+		fRadiusSquaredSum = radiusSquaredSum;
+		fSubStepTime = 1.0 / subStepRate;
+
+		fSpeeds = new double[MODULES];
+		fAngles = new double[MODULES];
+		fAnglePositionControl = new boolean[MODULES];
+		fZeroRequests = new boolean[MODULES];
+		fEncoderOffsets = new double[MODULES];
+		fAnalogOffsets = new double[MODULES];
+		reset();
+	}
+
+	public void reset() {
+		for (int m = 0; m < MODULES; m++) {
+			fDriveMotors[m].reset(0);
+			fSteerMotors[m].reset(0);
+			fSteerControllers[m].reset();
+			fEncoderOffsets[m] = 0;
+			fSpeeds[m] = 0;
+			fAngles[m] = 0;
+			fAnglePositionControl[m] = false;
+			fZeroRequests[m] = false;
+		}
+		mHeading = 0;
+		mX = 0;
+		mY = 0;
+	}
+
+	/**
+	 * Where the analog angle sensor reads zero relative to the module, like a sensor mounted out of line
+	 */
+	public void setAnalogOffset(int module, double offset) {
+		fAnalogOffsets[module] = offset;
+	}
+
+	/**
+	 * Sets a module's drive percent output and its steering setpoint, a position in degrees when anglePositionControl
+	 * and a percent output otherwise
+	 */
+	public void setModule(int module, double speed, double angle, boolean anglePositionControl) {
+		fSpeeds[module] = speed;
+		fAngles[module] = angle;
+		fAnglePositionControl[module] = anglePositionControl;
+	}
+
+	/**
+	 * The same as the zero output flag on a module's steering motor, the encoder is zeroed on the next step
+	 */
+	public void requestZero(int module) {
+		fZeroRequests[module] = true;
+	}
+
+	/**
+	 * Sets what a module's steering encoder reads without moving the module, like a motor controller that kept its
+	 * count through a code restart
+	 */
+	public void setEncoderPosition(int module, double position) {
+		fEncoderOffsets[module] = fSteerMotors[module].getPosition() - position;
+	}
+
+	public double getSubStepTime() {
+		return fSubStepTime;
+	}
+
+	/**
+	 * Advances one fixed sub-step with the current commands
+	 */
+	public void step() {
+		double vxSum = 0;
+		double vySum = 0;
+		double omegaSum = 0;
+
+		for (int m = 0; m < MODULES; m++) {
+			if (fZeroRequests[m]) {
+				fZeroRequests[m] = false;
+				fEncoderOffsets[m] = fSteerMotors[m].getPosition();
+				fSteerControllers[m].reset();
+			}
+
+			double steerOutput = fAnglePositionControl[m] ?
+					fSteerControllers[m].update(fAngles[m], getEncoderPosition(m), fSubStepTime) : fAngles[m];
+			fSteerMotors[m].step(steerOutput, fSubStepTime);
+			fDriveMotors[m].step(fSpeeds[m], fSubStepTime);
+
+			double angle = Math.toRadians(fSteerMotors[m].getPosition());
+			double rate = fDriveMotors[m].getRate();
+			double vx = rate * Math.cos(angle);
+			double vy = rate * Math.sin(angle);
+			vxSum += vx;
+			vySum += vy;
+			omegaSum += fModuleX[m] * vy - fModuleY[m] * vx;
+		}
+
+		// Least squares rigid body velocity from the four wheel vectors, wheels that disagree scrub
+		double vx = vxSum / MODULES;
+		double vy = vySum / MODULES;
+		double omega = omegaSum / fRadiusSquaredSum;
+
+		double heading = Math.toRadians(mHeading);
+		mX += (vx * Math.cos(heading) - vy * Math.sin(heading)) * fSubStepTime;
+		mY += (vx * Math.sin(heading) + vy * Math.cos(heading)) * fSubStepTime;
+		mHeading += Math.toDegrees(omega) * fSubStepTime;
+	}
+
+	/**
+	 * The steering motor controller's sensor position, in degrees since the last zero
+	 */
+	public double getEncoderPosition(int module) {
+		return fSteerMotors[module].getPosition() - fEncoderOffsets[module];
+	}
+
+	/**
+	 * The absolute analog angle sensor, in degrees from -180 to 180
+	 */
+	public double getAnalogAngle(int module) {
+		return SwerveModuleOptimizer.wrapDegrees(fSteerMotors[module].getPosition() - fAnalogOffsets[module]);
+	}
+
+	public double getDriveRate(int module) {
+		return fDriveMotors[module].getRate();
+	}
+
+	public double getDrivePosition(int module) {
+		return fDriveMotors[module].getPosition();
+	}
+
+	/**
+	 * Continuous heading in degrees, counterclockwise positive
+	 */
+	public double getHeading() {
+		return mHeading;
+	}
+
+	public double getX() {
+		return mX;
+	}
+
+	public double getY() {
+		return mY;
+	}
+}
@@ -0,0 +1,175 @@
+package org.team1619.sim;
+
+import org.team1619.utilities.swerve.SwerveKinematics;
+import org.team1619.utilities.swerve.SwerveModuleOptimizer;
+import org.uacr.shared.abstractions.InputValues;
+import org.uacr.shared.abstractions.OutputValues;
+import org.uacr.shared.abstractions.RobotConfiguration;
+import org.uacr.utilities.injection.Inject;
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+import org.uacr.utilities.services.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs the swerve plant on the core thread between the input service and the states service
+ *
+ * Each frame the plant catches up to real time in fixed sub-steps of 1 / sub_step_rate seconds, then the module
+ * analog angles, steering positions, wheel speeds and the navx heading are written over whatever the simulated
+ * hardware read, so the behaviors see the drivetrain respond to what they commanded. The commands are the
+ * opn_drivetrain_* output values, read by getCommandService() after the states service and before the output
+ * service so zero flags are seen before the outputs are sent. Steering positions are written in motor controller
+ * position units, angle_position_per_degree of them per degree.
+ */
+
+public class SwervePlantService implements SimPlant {
+
+	private static final Logger sLogger = LogManager.getLogger(SwervePlantService.class);
+
+	private static final int MODULES = SwerveKinematics.MODULES;
+
+	private final InputValues fSharedInputValues;
+	private final OutputValues fSharedOutputValues;
+	private final SwervePlant fPlant;
+	private final String fNavx;
+	private final double fPositionPerDegree;
+	private final long fSubStepTime;
+	private final int fMaxSubSteps;
+
+	private final String[] fAngleInputs;
+	private final String[] fAnglePositionInputs;
+	private final String[] fSpeedInputs;
+	private final String[] fAngleOutputs;
+	private final String[] fSpeedOutputs;
+	private final Map<String, Double> fNavxValues;
+
+	private long mSimulatedTime;
+
+	@Inject
+	public SwervePlantService(InputValues inputValues, OutputValues outputValues, RobotConfiguration robotConfiguration) {
+		this(inputValues, outputValues, robotConfiguration, SwervePlant.fromConfiguration(robotConfiguration, SwervePlant.loadSteerProfile(robotConfiguration)));
+	}
+
+	/**
+	 * Runs the given plant instead of the configured one, the tools use this to try other steering profiles
+	 */
+	public SwervePlantService(InputValues inputValues, OutputValues outputValues, RobotConfiguration robotConfiguration, SwervePlant plant) {
+		fSharedInputValues = inputValues;
+		fSharedOutputValues = outputValues;
+		fNavx = robotConfiguration.getString("global_drivetrain", "navx");
+		fPositionPerDegree = robotConfiguration.getDouble("global_drivetrain", "angle_position_per_degree");
+
+		double subStepRate = robotConfiguration.getDouble("global_sim", "sub_step_rate");
+		fPlant = plant;
+		fSubStepTime = (long) (1_000_000_000 / subStepRate);
+		// Never spend more than a tenth of a second catching up, after a pause the plant jumps forward instead
+		fMaxSubSteps = (int) Math.ceil(subStepRate / 10);
+
+		fAngleInputs = new String[MODULES];
+		fAnglePositionInputs = new String[MODULES];
+		fSpeedInputs = new String[MODULES];
+		fAngleOutputs = new String[MODULES];
+		fSpeedOutputs = new String[MODULES];
+		for (int m = 0; m < MODULES; m++) {
+			String module = SwerveKinematics.MODULE_NAMES[m];
+			fAngleInputs[m] = "ipn_drivetrain_" + module + "_angle";
+			fAnglePositionInputs[m] = "ipn_drivetrain_" + module + "_angle_position";
+			fSpeedInputs[m] = "ipn_drivetrain_" + module + "_speed";
+			fAngleOutputs[m] = "opn_drivetrain_" + module + "_angle";
+			fSpeedOutputs[m] = "opn_drivetrain_" + module + "_speed";
+		}
+		fNavxValues = new HashMap<>();
+	}
+
+	public SwervePlant getPlant() {
+		return fPlant;
+	}
+
+	@Override
+	public void startUp() {
+		sLogger.info("Swerve plant running at {} Hz", Math.round(1_000_000_000.0 / fSubStepTime));
+		fPlant.reset();
+		mSimulatedTime = System.nanoTime();
+		writeInputs();
+	}
+
+	@Override
+	public void runOneIteration() {
+		long now = System.nanoTime();
+		int subSteps = (int) Math.min(fMaxSubSteps, (now - mSimulatedTime) / fSubStepTime);
+		mSimulatedTime = subSteps == fMaxSubSteps ? now : mSimulatedTime + subSteps * fSubStepTime;
+		advance(subSteps);
+	}
+
+	/**
+	 * Steps the plant the given number of sub-steps and writes the sensors, tools that run in simulated time call
+	 * this instead of runOneIteration()
+	 */
+	public void advance(int subSteps) {
+		for (int s = 0; s < subSteps; s++) {
+			fPlant.step();
+		}
+		writeInputs();
+	}
+
+	@Override
+	public void shutDown() {
+	}
+
+	/**
+	 * Returns a service that copies the drivetrain output values into the plant, it must run right after the states
+	 * service in the same stage, so the plant is only ever touched by the core scheduler thread
+	 */
+	@Override
+	public Service getCommandService() {
+		return new Service() {
+			@Override
+			public void startUp() {
+			}
+
+			@Override
+			public void runOneIteration() {
+				readCommands();
+			}
+
+			@Override
+			public void shutDown() {
+			}
+		};
+	}
+
+	/**
+	 * Copies the drivetrain output values into the plant
+	 */
+	public void readCommands() {
+		for (int m = 0; m < MODULES; m++) {
+			Map<String, Object> angle = fSharedOutputValues.getOutputNumericValue(fAngleOutputs[m]);
+			fPlant.setModule(m, getValue(fSharedOutputValues.getOutputNumericValue(fSpeedOutputs[m])), getValue(angle), "position".equals(angle.get("type")));
+			if ("zero".equals(fSharedOutputValues.getOutputFlag(fAngleOutputs[m]))) {
+				fPlant.requestZero(m);
+			}
+		}
+	}
+
+	// Outputs that have not been set yet read as zero percent output
+	private static double getValue(Map<String, Object> output) {
+		Object value = output.get("value");
+		return value instanceof Number ? ((Number) value).doubleValue() : 0;
+	}
+
+	private void writeInputs() {
+		for (int m = 0; m < MODULES; m++) {
+			fSharedInputValues.setNumeric(fAngleInputs[m], fPlant.getAnalogAngle(m));
+			fSharedInputValues.setNumeric(fAnglePositionInputs[m], fPlant.getEncoderPosition(m) * fPositionPerDegree);
+			fSharedInputValues.setNumeric(fSpeedInputs[m], fPlant.getDriveRate(m));
+		}
+
+		// The navx angle is continuous and clockwise positive, yaw is the same wrapped to [-180, 180)
+		double angle = -fPlant.getHeading();
+		fNavxValues.put("angle", angle);
+		fNavxValues.put("yaw", SwerveModuleOptimizer.wrapDegrees(angle));
+		fSharedInputValues.setVector(fNavx, fNavxValues);
+	}
+}
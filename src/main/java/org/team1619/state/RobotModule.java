@@ -3,6 +3,14 @@ package org.team1619.state;
 import org.team1619.modelfactory.RobotModelFactory;
 import org.team1619.shared.abstractions.Dashboard;
 import org.team1619.shared.concretions.robot.RobotDashboard;
+import org.team1619.utilities.config.LiveConfiguration;
+import org.team1619.utilities.input.ControllerState;
+import org.team1619.utilities.input.InputShaping;
+import org.team1619.utilities.overload.OverloadController;
+import org.team1619.utilities.pose.PoseHistory;
+import org.team1619.utilities.restart.WarmRestartSnapshot;
+import org.team1619.utilities.schedule.BehaviorScheduler;
+import org.team1619.utilities.trace.FrameTracer;
 import org.uacr.robot.AbstractModelFactory;
 import org.uacr.robot.AbstractModule;
 import org.uacr.robot.AbstractStateControls;
@@ -14,5 +22,13 @@ public class RobotModule extends AbstractModule {
 
 		bind(AbstractModelFactory.class, RobotModelFactory.class);
 		bind(AbstractStateControls.class, StateControls.class);
+		bind(LiveConfiguration.class, LiveConfiguration.class);
+		bind(PoseHistory.class, PoseHistory.class);
+		bind(FrameTracer.class, FrameTracer.class);
+		bind(OverloadController.class, OverloadController.class);
+		bind(WarmRestartSnapshot.class, WarmRestartSnapshot.class);
+		bind(ControllerState.class, ControllerState.class);
+		bind(InputShaping.class, InputShaping.class);
+		bind(BehaviorScheduler.class, BehaviorScheduler.class);
 	}
 }
@@ -1,5 +1,9 @@
 package org.team1619.state;
 
+import org.team1619.utilities.pose.PoseHistory;
+import org.team1619.utilities.restart.WarmRestartSnapshot;
+import org.team1619.utilities.swerve.ModuleZeroStore;
+import org.team1619.utilities.swerve.SwerveKinematics;
 import org.uacr.robot.AbstractRobotStatus;
 import org.uacr.shared.abstractions.InputValues;
 import org.uacr.shared.abstractions.RobotConfiguration;
@@ -7,19 +11,61 @@ import org.uacr.utilities.LimitedSizeQueue;
 import org.uacr.utilities.logging.LogManager;
 import org.uacr.utilities.logging.Logger;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Sets flags and does global math and logic for competition bot
+ *
+ * Owns the saved swerve module zero offsets. The file is read once off the core thread, after that
+ * ipb_drivetrain_zero_offsets_loaded is set and every frame ipb_drivetrain_<module>_zero_offset_consistent says whether
+ * a module's sensors still agree with its saved offset, which is what bh_drivetrain_zero reads. The offsets of the
+ * zeroed modules are saved whenever the drivetrain finishes zeroing.
  */
 
 public class RobotStatus extends AbstractRobotStatus {
 
 	private static final Logger sLogger = LogManager.getLogger(RobotStatus.class);
 
-	public RobotStatus(InputValues inputValues, RobotConfiguration robotConfiguration) {
+	private final PoseHistory fPoseHistory;
+	private final WarmRestartSnapshot fWarmRestartSnapshot;
+	private final double fPositionPerDegree;
+	private final double fOffsetTolerance;
+	private final ModuleZeroStore fZeroStore;
+	private final CompletableFuture<Boolean> fZeroStoreLoad;
+	private final String[] fModuleZeroed;
+	private final String[] fModuleConsistent;
+	private final String[] fModuleAngle;
+	private final String[] fModulePosition;
+
+	private boolean mDrivetrainZeroed;
+
+	public RobotStatus(InputValues inputValues, RobotConfiguration robotConfiguration, PoseHistory poseHistory, WarmRestartSnapshot warmRestartSnapshot) {
 		super(inputValues, robotConfiguration);
+
+		fPoseHistory = poseHistory;
+		fWarmRestartSnapshot = warmRestartSnapshot;
+		fPositionPerDegree = robotConfiguration.getDouble("global_drivetrain", "angle_position_per_degree");
+		fOffsetTolerance = robotConfiguration.getDouble("global_drivetrain", "zero_offset_tolerance");
+		// Read off the core thread, a restored zero is only trusted once the file has been read
+		fZeroStore = new ModuleZeroStore(robotConfiguration.getString("global_drivetrain", "zero_offsets_file"));
+		fZeroStoreLoad = CompletableFuture.supplyAsync(fZeroStore::load);
+
+		int modules = SwerveKinematics.MODULES;
+		fModuleZeroed = new String[modules];
+		fModuleConsistent = new String[modules];
+		fModuleAngle = new String[modules];
+		fModulePosition = new String[modules];
+		for (int m = 0; m < modules; m++) {
+			String module = SwerveKinematics.MODULE_NAMES[m];
+			fModuleZeroed[m] = "ipb_drivetrain_" + module + "_zeroed";
+			fModuleConsistent[m] = "ipb_drivetrain_" + module + "_zero_offset_consistent";
+			fModuleAngle[m] = "ipn_drivetrain_" + module + "_angle";
+			fModulePosition[m] = "ipn_drivetrain_" + module + "_angle_position";
+		}
+		mDrivetrainZeroed = false;
 	}
 
 	@Override
@@ -36,6 +82,68 @@ public class RobotStatus extends AbstractRobotStatus {
 				&& fSharedInputValues.getBoolean("ipb_drivetrain_has_been_zeroed")) {
 			fSharedInputValues.setBoolean("ipb_robot_has_been_zeroed", true);
 		}
+
+		// Saved zero offsets
+		boolean drivetrainZeroed = fSharedInputValues.getBoolean("ipb_drivetrain_has_been_zeroed");
+		if (fZeroStoreLoad.isDone()) {
+			fSharedInputValues.setBoolean("ipb_drivetrain_zero_offsets_loaded", true);
+			if (!drivetrainZeroed) {
+				for (int m = 0; m < SwerveKinematics.MODULES; m++) {
+					fSharedInputValues.setBoolean(fModuleConsistent[m], isConsistent(m));
+				}
+			} else if (!mDrivetrainZeroed) {
+				saveOffsets();
+			}
+		}
+		mDrivetrainZeroed = drivetrainZeroed;
+
+		// Pose history for latency compensation of delayed measurements
+		Map<String, Double> odometry = fSharedInputValues.getVector("ipv_swerve_odometry");
+		Map<String, Double> navx = fSharedInputValues.getVector("ipv_navx");
+		fPoseHistory.add(System.nanoTime() / 1_000_000_000.0, odometry.getOrDefault("x", 0.0), odometry.getOrDefault("y", 0.0), navx.getOrDefault("angle", 0.0));
+
+		fWarmRestartSnapshot.capture(fSharedInputValues);
+	}
+
+	/**
+	 * Keeps the zero flags a warm restart brought back only for modules whose analog angle still agrees with their
+	 * motor controller position, otherwise the drivetrain zeros again
+	 */
+	void checkRestoredZeros() {
+		// The file has been loading since the robot code started, long before anything can be enabled, so this does not
+		// wait in practice and never throws a good zero away because the load lost a race
+		fZeroStoreLoad.join();
+		boolean allZeroed = true;
+		for (int m = 0; m < SwerveKinematics.MODULES; m++) {
+			if (fSharedInputValues.getBoolean(fModuleZeroed[m]) && !isConsistent(m)) {
+				sLogger.info("Not restoring the zero of {}, its sensors no longer agree with the saved offset", SwerveKinematics.MODULE_NAMES[m]);
+				fSharedInputValues.setBoolean(fModuleZeroed[m], false);
+			}
+			allZeroed &= fSharedInputValues.getBoolean(fModuleZeroed[m]);
+		}
+		if (!allZeroed) {
+			fSharedInputValues.setBoolean("ipb_drivetrain_has_been_zeroed", false);
+			fSharedInputValues.setBoolean("ipb_robot_has_been_zeroed", false);
+		}
+	}
+
+	// Only call once the file has been loaded
+	private boolean isConsistent(int module) {
+		return fZeroStoreLoad.join() && fZeroStore.isConsistent(SwerveKinematics.MODULE_NAMES[module], fSharedInputValues.getNumeric(fModuleAngle[module]),
+				fSharedInputValues.getNumeric(fModulePosition[module]) / fPositionPerDegree, fOffsetTolerance);
+	}
+
+	// Only modules that are zeroed now are saved, a module that timed out has to zero again next boot
+	private void saveOffsets() {
+		Map<String, double[]> readings = new HashMap<>();
+		for (int m = 0; m < SwerveKinematics.MODULES; m++) {
+			if (fSharedInputValues.getBoolean(fModuleZeroed[m])) {
+				readings.put(SwerveKinematics.MODULE_NAMES[m], new double[]{fSharedInputValues.getNumeric(fModuleAngle[m]),
+						fSharedInputValues.getNumeric(fModulePosition[m]) / fPositionPerDegree});
+			}
+		}
+
+		CompletableFuture.runAsync(() -> fZeroStore.save(readings));
 	}
 
 	@Override
@@ -3,6 +3,16 @@ package org.team1619.state;
 import org.team1619.modelfactory.SimModelFactory;
 import org.team1619.shared.abstractions.Dashboard;
 import org.team1619.shared.concretions.sim.SimDashboard;
+import org.team1619.sim.SimPlant;
+import org.team1619.sim.SwervePlantService;
+import org.team1619.utilities.config.LiveConfiguration;
+import org.team1619.utilities.input.ControllerState;
+import org.team1619.utilities.input.InputShaping;
+import org.team1619.utilities.overload.OverloadController;
+import org.team1619.utilities.pose.PoseHistory;
+import org.team1619.utilities.restart.WarmRestartSnapshot;
+import org.team1619.utilities.schedule.BehaviorScheduler;
+import org.team1619.utilities.trace.FrameTracer;
 import org.uacr.robot.AbstractModelFactory;
 import org.uacr.robot.AbstractModule;
 import org.uacr.robot.AbstractStateControls;
@@ -14,5 +24,15 @@ public class SimModule extends AbstractModule {
 
 		bind(AbstractModelFactory.class, SimModelFactory.class);
 		bind(AbstractStateControls.class, StateControls.class);
+		bind(LiveConfiguration.class, LiveConfiguration.class);
+		bind(PoseHistory.class, PoseHistory.class);
+		bind(FrameTracer.class, FrameTracer.class);
+		bind(OverloadController.class, OverloadController.class);
+		bind(WarmRestartSnapshot.class, WarmRestartSnapshot.class);
+		bind(ControllerState.class, ControllerState.class);
+		bind(InputShaping.class, InputShaping.class);
+		bind(BehaviorScheduler.class, BehaviorScheduler.class);
+		// Bind NoPlant to leave the drivetrain sensors to the generic simulated hardware
+		bind(SimPlant.class, SwervePlantService.class);
 	}
 }
@@ -1,12 +1,15 @@
 package org.team1619.state;
 
 import org.team1619.state.modelogic.*;
+import org.team1619.utilities.input.ControllerState;
+import org.team1619.utilities.pose.PoseHistory;
+import org.team1619.utilities.restart.WarmRestartSnapshot;
+import org.team1619.utilities.trace.FrameTracer;
 import org.uacr.robot.AbstractStateControls;
 import org.uacr.robot.ControlMode;
 import org.uacr.shared.abstractions.FMS;
 import org.uacr.shared.abstractions.InputValues;
 import org.uacr.shared.abstractions.RobotConfiguration;
-import org.uacr.utilities.Timer;
 import org.uacr.utilities.injection.Inject;
 import org.uacr.utilities.logging.LogManager;
 import org.uacr.utilities.logging.Logger;
@@ -19,18 +22,32 @@ public class StateControls extends AbstractStateControls {
 
 	private static final Logger sLogger = LogManager.getLogger(StateControls.class);
 
-	private final Timer fTimerMode;
-	private final Timer fTimerEndgame;
+	private final ControllerState fControllerState;
+	private final int fOperatorStart;
+	private final int fOperatorBack;
 	private final boolean fInitialIsManualMode;
+	private final FrameTracer fTracer;
+	private final int fTraceName;
+	private final WarmRestartSnapshot fWarmRestartSnapshot;
+	private final RobotStatus fRobotStatus;
 
 	private boolean mIsEndgameMode;
 	private boolean mIsManualMode;
+	private boolean mHasBeenEnabled;
 
 	@Inject
-	public StateControls(InputValues inputValues, RobotConfiguration robotConfiguration) {
+	public StateControls(InputValues inputValues, RobotConfiguration robotConfiguration, PoseHistory poseHistory, FrameTracer tracer, WarmRestartSnapshot warmRestartSnapshot, ControllerState controllerState) {
 		super(inputValues, robotConfiguration);
 
-		registerRobotStatus(new RobotStatus(inputValues, robotConfiguration));
+		fTracer = tracer;
+		fTraceName = tracer.register("State controls");
+		fWarmRestartSnapshot = warmRestartSnapshot;
+		fControllerState = controllerState;
+		fOperatorStart = controllerState.getHandle("ipb_operator_start");
+		fOperatorBack = controllerState.getHandle("ipb_operator_back");
+
+		fRobotStatus = new RobotStatus(inputValues, robotConfiguration, poseHistory, warmRestartSnapshot);
+		registerRobotStatus(fRobotStatus);
 		registerModeLogic(ControlMode.AUTONOMOUS, new AutonomousModeLogic(inputValues, robotConfiguration));
 		registerModeLogic(ControlMode.TELEOP, new TeleopModeLogic(inputValues, robotConfiguration));
 		registerModeLogic(ControlMode.MANUAL_TELEOP, new ManualTeleopModeLogic(inputValues, robotConfiguration));
@@ -40,11 +57,9 @@ public class StateControls extends AbstractStateControls {
 		//Modes
 		mIsEndgameMode = false;
 		mIsManualMode = false;
+		mHasBeenEnabled = false;
 
-		fTimerMode = new Timer();
 		mFmsMode = FMS.Mode.DISABLED;
-		//Climb
-		fTimerEndgame = new Timer();
 		if (robotConfiguration.contains("general", "initial_teleop_mode")) {
 			switch (robotConfiguration.getString("general", "initial_teleop_mode")) {
 				case "teleop_mode":
@@ -69,31 +84,34 @@ public class StateControls extends AbstractStateControls {
 		mIsEndgameMode = false;
 		mIsManualMode = fInitialIsManualMode;
 
-		fSharedInputValues.setBoolean("ipb_endgame_enabled", false);
+		// After a restart mid-match carry on in the modes the driver had selected. The snapshot is only read on the
+		// first enable, by then the driver station has said whether the FMS is attached
+		if (currentFmsMode != FMS.Mode.DISABLED && !mHasBeenEnabled) {
+			mHasBeenEnabled = true;
+			if (fWarmRestartSnapshot.restore(fSharedInputValues)) {
+				fRobotStatus.checkRestoredZeros();
+				mIsEndgameMode = fSharedInputValues.getBoolean("ipb_endgame_enabled");
+				mIsManualMode = fSharedInputValues.getBoolean("ipb_manual_mode");
+			}
+		}
+
+		fSharedInputValues.setBoolean("ipb_endgame_enabled", mIsEndgameMode);
+		fSharedInputValues.setBoolean("ipb_manual_mode", mIsManualMode);
 	}
 
 	@Override
 	public void update() {
+		long traceBegin = System.nanoTime();
 
 		if (mFmsMode == FMS.Mode.AUTONOMOUS) {
 			setCurrentControlMode(ControlMode.AUTONOMOUS);
 		} else {
-			if (!fTimerMode.isStarted() && fSharedInputValues.getBooleanRisingEdge("ipb_operator_start")) {
-				fTimerMode.start(1000);
-			} else if (fTimerMode.isDone()) {
+			// Holding start or back for a second toggles manual or endgame mode, once per press
+			if (fControllerState.isHeldFor(fOperatorStart, 1000)) {
 				mIsManualMode = !mIsManualMode;
-				fTimerMode.reset();
-			} else if (!fSharedInputValues.getBoolean("ipb_operator_start")) {
-				fTimerMode.reset();
 			}
-
-			if (!fTimerEndgame.isStarted() && fSharedInputValues.getBooleanRisingEdge("ipb_operator_back")) {
-				fTimerEndgame.start(1000);
-			} else if (fTimerEndgame.isDone()) {
+			if (fControllerState.isHeldFor(fOperatorBack, 1000)) {
 				mIsEndgameMode = !mIsEndgameMode;
-				fTimerEndgame.reset();
-			} else if (!fSharedInputValues.getBoolean("ipb_operator_back")) {
-				fTimerEndgame.reset();
 			}
 
 			if (mIsManualMode) {
@@ -111,12 +129,17 @@ public class StateControls extends AbstractStateControls {
 			}
 
 			fSharedInputValues.setBoolean("ipb_endgame_enabled", mIsEndgameMode);
+			fSharedInputValues.setBoolean("ipb_manual_mode", mIsManualMode);
 		}
 		fSharedInputValues.setString("ips_mode", getCurrentControlMode().toString());
+
+		fTracer.record(fTraceName, traceBegin, System.nanoTime());
 	}
 
 	@Override
 	public void dispose() {
 		fSharedInputValues.setString("ips_mode", "DISABLED");
+		// Only the enabled period right after a warm restart is treated as one
+		fSharedInputValues.setBoolean("ipb_warm_restarted", false);
 	}
 }
@@ -43,7 +43,11 @@ public class AutonomousModeLogic extends AbstractModeLogic {
 		}
 		sLogger.debug(mCombinedAuto);
 
-		fSharedInputValues.setBoolean("ipb_auto_complete", false);
+		// A restart after the auto finished must not run it again, StateControls clears ipb_warm_restarted when the
+		// robot is disabled
+		if (!fSharedInputValues.getBoolean("ipb_warm_restarted")) {
+			fSharedInputValues.setBoolean("ipb_auto_complete", false);
+		}
 	}
 
 	@Override
@@ -0,0 +1,193 @@
+package org.team1619.utilities.config;
+
+import org.uacr.models.exceptions.ConfigurationException;
+import org.uacr.shared.abstractions.RobotConfiguration;
+import org.uacr.utilities.injection.Inject;
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+import org.uacr.utilities.services.Service;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Watches states.yaml and robot-configuration.yaml and stages any changes into the LiveConfiguration
+ *
+ * The copies packaged in the jar are the baseline, so only values that differ from what the robot was started with
+ * are staged, including differences already in the watched directory at startup. Runs on the info thread so file
+ * access and parsing never land in a core frame. The staged values are swapped in by the commit service at the start
+ * of the next core frame, the affected behaviors are rebuilt with them on the next info frame and each one is swapped
+ * in the next time its state is entered.
+ */
+
+public class ConfigReloadService implements Service {
+
+	private static final Logger sLogger = LogManager.getLogger(ConfigReloadService.class);
+
+	private static final String STATES_FILE = "states.yaml";
+	private static final String ROBOT_CONFIGURATION_FILE = "robot-configuration.yaml";
+
+	private final LiveConfiguration fLiveConfiguration;
+	private final boolean fEnabled;
+	private final Path fDirectory;
+
+	private WatchService mWatchService;
+	private Map<String, Map<String, Object>> mStates;
+	private Map<String, Map<String, Object>> mCategories;
+
+	@Inject
+	public ConfigReloadService(LiveConfiguration liveConfiguration, RobotConfiguration robotConfiguration) {
+		fLiveConfiguration = liveConfiguration;
+		fEnabled = robotConfiguration.getBoolean("global_config_reload", "enabled");
+		fDirectory = Paths.get(robotConfiguration.getString("global_config_reload", "directory"));
+		mStates = new HashMap<>();
+		mCategories = new HashMap<>();
+
+		if (fEnabled) {
+			try {
+				mStates = parseStates(loadResource(STATES_FILE));
+				mCategories = parseCategories(loadResource(ROBOT_CONFIGURATION_FILE));
+			} catch (IOException e) {
+				throw new ConfigurationException("Could not read the packaged configuration: " + e.getMessage());
+			}
+			liveConfiguration.setBaseline(mStates, mCategories);
+		}
+	}
+
+	@Override
+	public void startUp() throws Exception {
+		if (!fEnabled) {
+			return;
+		}
+		if (!Files.isDirectory(fDirectory)) {
+			sLogger.info("Config reload directory {} does not exist, reloading is off", fDirectory.toAbsolutePath());
+			return;
+		}
+
+		mStates = parseStates(load(fDirectory.resolve(STATES_FILE)));
+		mCategories = parseCategories(load(fDirectory.resolve(ROBOT_CONFIGURATION_FILE)));
+		Map<String, Integer> changed = fLiveConfiguration.stage(mStates, mCategories);
+		if (!changed.isEmpty()) {
+			sLogger.info("{} differs from the packaged configuration for {}", fDirectory.toAbsolutePath(), changed.keySet());
+		}
+
+		mWatchService = FileSystems.getDefault().newWatchService();
+		fDirectory.register(mWatchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+		sLogger.info("Watching {} for configuration changes", fDirectory.toAbsolutePath());
+	}
+
+	@Override
+	public void runOneIteration() throws Exception {
+		if (mWatchService == null) {
+			return;
+		}
+
+		// Values staged by an earlier frame have been committed by now
+		fLiveConfiguration.rebuildBehaviors();
+
+		boolean statesChanged = false;
+		boolean categoriesChanged = false;
+		WatchKey key;
+		while ((key = mWatchService.poll()) != null) {
+			for (WatchEvent<?> event : key.pollEvents()) {
+				String fileName = event.context().toString();
+				statesChanged |= fileName.equals(STATES_FILE);
+				categoriesChanged |= fileName.equals(ROBOT_CONFIGURATION_FILE);
+			}
+			key.reset();
+		}
+
+		if (!statesChanged && !categoriesChanged) {
+			return;
+		}
+
+		try {
+			if (statesChanged) {
+				mStates = parseStates(load(fDirectory.resolve(STATES_FILE)));
+			}
+			if (categoriesChanged) {
+				mCategories = parseCategories(load(fDirectory.resolve(ROBOT_CONFIGURATION_FILE)));
+			}
+		} catch (RuntimeException | IOException e) {
+			// Editors often save in several steps, keep the last good values and wait for the next change
+			sLogger.error("Could not parse configuration change: {}", e.getMessage());
+			return;
+		}
+
+		Map<String, Integer> changed = fLiveConfiguration.stage(mStates, mCategories);
+		if (!changed.isEmpty()) {
+			sLogger.info("Reloading configuration for {}", changed.keySet());
+		}
+	}
+
+	@Override
+	public void shutDown() throws Exception {
+		if (mWatchService != null) {
+			mWatchService.close();
+		}
+	}
+
+	/**
+	 * Returns a service that swaps in staged values, it must run first in the core service
+	 */
+	public Service getCommitService() {
+		return new Service() {
+			@Override
+			public void startUp() {
+			}
+
+			@Override
+			public void runOneIteration() {
+				fLiveConfiguration.commit();
+			}
+
+			@Override
+			public void shutDown() {
+			}
+		};
+	}
+
+	// State name -> behavior_config for every state type
+	private static Map<String, Map<String, Object>> parseStates(Object file) {
+		Map<String, Map<String, Object>> states = new HashMap<>();
+		for (Object stateType : asMap(file).values()) {
+			for (Map.Entry<String, Object> state : asMap(stateType).entrySet()) {
+				states.put(state.getKey(), asMap(asMap(state.getValue()).get("behavior_config")));
+			}
+		}
+		return states;
+	}
+
+	// Category -> values
+	private static Map<String, Map<String, Object>> parseCategories(Object file) {
+		Map<String, Map<String, Object>> categories = new HashMap<>();
+		for (Map.Entry<String, Object> category : asMap(file).entrySet()) {
+			categories.put(category.getKey(), asMap(category.getValue()));
+		}
+		return categories;
+	}
+
+	private static Object load(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			return new Yaml().load(in);
+		}
+	}
+
+	private static Object loadResource(String name) throws IOException {
+		try (InputStream in = ConfigReloadService.class.getClassLoader().getResourceAsStream(name)) {
+			if (in == null) {
+				throw new IOException("Could not find " + name);
+			}
+			return new Yaml().load(in);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> asMap(Object value) {
+		return value instanceof Map ? (Map<String, Object>) value : Map.of();
+	}
+}
@@ -0,0 +1,183 @@
+package org.team1619.utilities.config;
+
+import org.uacr.shared.abstractions.RobotConfiguration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds configuration values reloaded while the robot is running
+ *
+ * New values are staged from the info thread and swapped in by commit() at the start of a core frame, so every
+ * behavior sees a whole reload or none of it. Each state carries a version that only changes when its behavior
+ * config changes, and the robot configuration carries one that changes when any category changes, so only the
+ * behaviors affected by an edit are rebuilt. rebuildBehaviors() builds them on the info thread once the values are
+ * committed, and each one is swapped in the next time its state is entered.
+ */
+
+public class LiveConfiguration {
+
+	private final AtomicReference<Snapshot> fPending;
+	private final List<ReloadingBehavior> fBehaviors;
+	private volatile Snapshot mLive;
+
+	public LiveConfiguration() {
+		fPending = new AtomicReference<>();
+		fBehaviors = new CopyOnWriteArrayList<>();
+		mLive = Snapshot.EMPTY;
+	}
+
+	/**
+	 * Sets the values the robot was started with, later stages are versioned against these
+	 */
+	public synchronized void setBaseline(Map<String, Map<String, Object>> states, Map<String, Map<String, Object>> categories) {
+		fPending.set(null);
+		mLive = new Snapshot(states, Map.of(), categories, 0);
+	}
+
+	/**
+	 * Stages new values, returns the names of the states and categories that changed
+	 */
+	public synchronized Map<String, Integer> stage(Map<String, Map<String, Object>> states, Map<String, Map<String, Object>> categories) {
+		Snapshot pending = fPending.get();
+		Snapshot base = pending != null ? pending : mLive;
+
+		Map<String, Integer> changed = new HashMap<>();
+		Map<String, Integer> stateVersions = new HashMap<>(base.fStateVersions);
+		for (Map.Entry<String, Map<String, Object>> state : states.entrySet()) {
+			if (!state.getValue().equals(base.fStates.get(state.getKey()))) {
+				int version = stateVersions.getOrDefault(state.getKey(), 0) + 1;
+				stateVersions.put(state.getKey(), version);
+				changed.put(state.getKey(), version);
+			}
+		}
+		int categoriesVersion = base.fCategoriesVersion;
+		for (Map.Entry<String, Map<String, Object>> category : categories.entrySet()) {
+			if (!category.getValue().equals(base.fCategories.get(category.getKey()))) {
+				changed.put(category.getKey(), base.fCategoriesVersion + 1);
+				categoriesVersion = base.fCategoriesVersion + 1;
+			}
+		}
+
+		if (!changed.isEmpty()) {
+			fPending.set(new Snapshot(states, Collections.unmodifiableMap(stateVersions), categories, categoriesVersion));
+		}
+		return changed;
+	}
+
+	/**
+	 * Swaps in staged values, call from the core thread between frames
+	 */
+	public void commit() {
+		Snapshot pending = fPending.getAndSet(null);
+		if (pending != null) {
+			mLive = pending;
+		}
+	}
+
+	/**
+	 * Adds a behavior for rebuildBehaviors() to rebuild
+	 */
+	void register(ReloadingBehavior behavior) {
+		fBehaviors.add(behavior);
+	}
+
+	/**
+	 * Builds replacements for the behaviors whose configuration changed since they were last built, call from the
+	 * info thread so constructors never run in a core frame
+	 */
+	public void rebuildBehaviors() {
+		for (ReloadingBehavior behavior : fBehaviors) {
+			behavior.buildReplacement();
+		}
+	}
+
+	/**
+	 * Returns 0 until the state is first reloaded, then increases every time its behavior config changes
+	 */
+	public int getStateVersion(String stateName) {
+		return mLive.fStateVersions.getOrDefault(stateName, 0);
+	}
+
+	/**
+	 * Returns 0 until the robot configuration is first reloaded, then increases every time any category changes
+	 */
+	public int getCategoriesVersion() {
+		return mLive.fCategoriesVersion;
+	}
+
+	/**
+	 * The live behavior_config of a state, null if the state is not in the reloaded files
+	 */
+	public Map<String, Object> getStateConfig(String stateName) {
+		return mLive.fStates.get(stateName);
+	}
+
+	/**
+	 * Returns a robot configuration whose get*(category, key) getters read the live value of any category and key that
+	 * has one, and the configuration the robot was started with otherwise. Everything else, like contains(), goes
+	 * straight to the configuration the robot was started with.
+	 */
+	public RobotConfiguration overlay(RobotConfiguration robotConfiguration) {
+		return (RobotConfiguration) Proxy.newProxyInstance(RobotConfiguration.class.getClassLoader(), new Class<?>[]{RobotConfiguration.class}, (proxy, method, arguments) -> {
+			if (method.getName().startsWith("get") && arguments != null && arguments.length == 2 && arguments[0] instanceof String && arguments[1] instanceof String) {
+				Map<String, Object> category = mLive.fCategories.get(arguments[0]);
+				Object value = category != null ? category.get(arguments[1]) : null;
+				Object converted = convert(value, method.getReturnType());
+				if (converted != null) {
+					return converted;
+				}
+			}
+			try {
+				return method.invoke(robotConfiguration, arguments);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		});
+	}
+
+	// The live value as the type a RobotConfiguration getter returns, null if it cannot be
+	private static Object convert(Object value, Class<?> type) {
+		if (value instanceof Number) {
+			if (type == double.class || type == Double.class) {
+				return ((Number) value).doubleValue();
+			}
+			if (type == int.class || type == Integer.class) {
+				return ((Number) value).intValue();
+			}
+		}
+		if (value instanceof Boolean && (type == boolean.class || type == Boolean.class)) {
+			return value;
+		}
+		if (value instanceof List && type.isAssignableFrom(List.class)) {
+			return value;
+		}
+		if (value != null && type == String.class) {
+			return value.toString();
+		}
+		return null;
+	}
+
+	private static class Snapshot {
+
+		private static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(), Map.of(), 0);
+
+		private final Map<String, Map<String, Object>> fStates;
+		private final Map<String, Integer> fStateVersions;
+		private final Map<String, Map<String, Object>> fCategories;
+		private final int fCategoriesVersion;
+
+		private Snapshot(Map<String, Map<String, Object>> states, Map<String, Integer> stateVersions, Map<String, Map<String, Object>> categories, int categoriesVersion) {
+			fStates = states;
+			fStateVersions = stateVersions;
+			fCategories = categories;
+			fCategoriesVersion = categoriesVersion;
+		}
+	}
+}
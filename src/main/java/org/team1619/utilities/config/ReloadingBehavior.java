@@ -0,0 +1,127 @@
+package org.team1619.utilities.config;
+
+import org.uacr.models.behavior.Behavior;
+import org.uacr.models.exceptions.ConfigurationException;
+import org.uacr.utilities.Config;
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Swaps in a rebuilt behavior when its state is entered after its behavior_config or the robot configuration was
+ * reloaded
+ *
+ * Behaviors read most of their configuration in their constructor, so rather than every behavior watching for
+ * changes the whole behavior is created again with the live values. LiveConfiguration.rebuildBehaviors() creates the
+ * replacement on the info thread and the core thread only swaps it in. A state that is running keeps the behavior it
+ * started with until it is next entered, and so does a state entered before its replacement is ready.
+ */
+
+public class ReloadingBehavior implements Behavior {
+
+	private static final Logger sLogger = LogManager.getLogger(ReloadingBehavior.class);
+
+	private final LiveConfiguration fLiveConfiguration;
+	private final Function<Config, Behavior> fFactory;
+	private final Config fConfig;
+	private final AtomicReference<Replacement> fReplacement;
+
+	// Core thread
+	private Behavior mBehavior;
+	private Config mLiveConfig;
+
+	// Set by the core thread when the state is entered, read by the info thread to find the state's live config
+	private volatile String mStateName;
+
+	// Info thread, the versions the newest behavior was built from
+	private int mBuiltStateVersion;
+	private int mBuiltCategoriesVersion;
+
+	/**
+	 * @param factory creates the behavior from a behavior_config, on the info thread when it is rebuilt
+	 */
+	public ReloadingBehavior(LiveConfiguration liveConfiguration, Function<Config, Behavior> factory, Config config) {
+		fLiveConfiguration = liveConfiguration;
+		fFactory = factory;
+		fConfig = config;
+		fReplacement = new AtomicReference<>();
+		mBehavior = factory.apply(config);
+		mLiveConfig = null;
+		mStateName = null;
+		mBuiltStateVersion = 0;
+		mBuiltCategoriesVersion = liveConfiguration.getCategoriesVersion();
+		liveConfiguration.register(this);
+	}
+
+	/**
+	 * Builds a replacement if the committed configuration changed since the newest behavior was built, call from the
+	 * info thread
+	 */
+	void buildReplacement() {
+		String stateName = mStateName;
+		int stateVersion = stateName != null ? fLiveConfiguration.getStateVersion(stateName) : 0;
+		int categoriesVersion = fLiveConfiguration.getCategoriesVersion();
+		if (stateVersion == mBuiltStateVersion && categoriesVersion == mBuiltCategoriesVersion) {
+			return;
+		}
+		mBuiltStateVersion = stateVersion;
+		mBuiltCategoriesVersion = categoriesVersion;
+
+		Map<String, Object> liveConfig = stateVersion > 0 ? fLiveConfiguration.getStateConfig(stateName) : null;
+		Config config = liveConfig != null ? new Config(fConfig.getType(), liveConfig) : null;
+		try {
+			fReplacement.set(new Replacement(fFactory.apply(config != null ? config : fConfig), config));
+			sLogger.info("Rebuilt the behavior for {} with reloaded configuration", stateName != null ? stateName : fConfig.getType());
+		} catch (ConfigurationException e) {
+			// Keep running the last good behavior until the configuration is fixed
+			sLogger.error("Could not rebuild the behavior for {}: {}", stateName != null ? stateName : fConfig.getType(), e.getMessage());
+		}
+	}
+
+	@Override
+	public void initialize(String stateName, Config config) {
+		mStateName = stateName;
+		Replacement replacement = fReplacement.getAndSet(null);
+		if (replacement != null) {
+			mBehavior = replacement.fBehavior;
+			mLiveConfig = replacement.fLiveConfig;
+		}
+		mBehavior.initialize(stateName, mLiveConfig != null ? mLiveConfig : config);
+	}
+
+	@Override
+	public void update() {
+		mBehavior.update();
+	}
+
+	@Override
+	public void dispose() {
+		mBehavior.dispose();
+	}
+
+	@Override
+	public boolean isDone() {
+		return mBehavior.isDone();
+	}
+
+	@Override
+	public Set<String> getSubsystems() {
+		return mBehavior.getSubsystems();
+	}
+
+	private static class Replacement {
+
+		private final Behavior fBehavior;
+		// The reloaded behavior_config, null if the behavior was built from the one the robot was started with
+		private final Config fLiveConfig;
+
+		private Replacement(Behavior behavior, Config liveConfig) {
+			fBehavior = behavior;
+			fLiveConfig = liveConfig;
+		}
+	}
+}
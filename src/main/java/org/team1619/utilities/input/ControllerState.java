@@ -0,0 +1,310 @@
+package org.team1619.utilities.input;
+
+import org.uacr.models.exceptions.ConfigurationException;
+import org.uacr.shared.abstractions.InputValues;
+import org.uacr.utilities.injection.Inject;
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+import org.uacr.utilities.services.Service;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Every controller button from the controller_button section of input-booleans.yaml packed into one long per port
+ *
+ * update() reads each configured button once per frame and sets its bit, then the rising and falling edge masks are
+ * cur & ~last and ~cur & last. Look a button up once with getHandle() and every query after that is a shift and a
+ * mask, or an array read for hold times. Hold times are measured from the frame that saw the rising edge.
+ *
+ * A handle is port * 64 + bit, bits are given out in the order the buttons appear in the file. Only use from the
+ * thread running the states service.
+ *
+ * Something that does not look at every frame, like a decimated behavior, registers an edge window. Every frame's
+ * edges are OR'ed into it, and between beginWindow() and endWindow() the edge queries and isHeldFor() answer for
+ * everything since the window last ended rather than for this frame alone.
+ */
+
+public class ControllerState {
+
+	private static final Logger sLogger = LogManager.getLogger(ControllerState.class);
+
+	private static final String FILE = "input-booleans.yaml";
+	private static final String SECTION = "controller_button";
+	private static final int BITS = Long.SIZE;
+
+	private final InputValues fSharedInputValues;
+	private final Map<String, Integer> fHandles;
+	// Per configured button
+	private final String[] fNames;
+	private final int[] fButtonHandles;
+
+	// Per port
+	private final long[] fPressed;
+	private final long[] fRising;
+	private final long[] fFalling;
+	// Per handle
+	private final long[] fPressTimes;
+
+	// Per window, then per port
+	private long[][] mWindowRising;
+	private long[][] mWindowFalling;
+	// Per window, the update time when it last ended
+	private long[] mWindowEndTimes;
+
+	// What the edge queries read, this frame's masks or an open window's
+	private long[] mRisingView;
+	private long[] mFallingView;
+	private long mLastViewTime;
+
+	private long mUpdateTime;
+	private long mLastUpdateTime;
+
+	@Inject
+	public ControllerState(InputValues inputValues) {
+		this(inputValues, loadButtons());
+	}
+
+	/**
+	 * @param buttons input boolean name to port, in bit order
+	 */
+	public ControllerState(InputValues inputValues, Map<String, Integer> buttons) {
+		fSharedInputValues = inputValues;
+		fHandles = new HashMap<>();
+		fNames = new String[buttons.size()];
+		fButtonHandles = new int[buttons.size()];
+
+		int ports = 0;
+		for (int port : buttons.values()) {
+			if (port < 0) {
+				throw new ConfigurationException("Controller port " + port + " must not be negative");
+			}
+			ports = Math.max(ports, port + 1);
+		}
+		int[] nextBit = new int[ports];
+		int b = 0;
+		for (Map.Entry<String, Integer> button : buttons.entrySet()) {
+			int port = button.getValue();
+			if (nextBit[port] == BITS) {
+				throw new ConfigurationException("Controller port " + port + " has more than " + BITS + " buttons");
+			}
+			int handle = port * BITS + nextBit[port]++;
+			fHandles.put(button.getKey(), handle);
+			fNames[b] = button.getKey();
+			fButtonHandles[b] = handle;
+			b++;
+		}
+
+		fPressed = new long[ports];
+		fRising = new long[ports];
+		fFalling = new long[ports];
+		fPressTimes = new long[ports * BITS];
+		mWindowRising = new long[0][];
+		mWindowFalling = new long[0][];
+		mWindowEndTimes = new long[0];
+		mRisingView = fRising;
+		mFallingView = fFalling;
+		mUpdateTime = System.nanoTime();
+		mLastUpdateTime = mUpdateTime;
+		mLastViewTime = mLastUpdateTime;
+	}
+
+	/**
+	 * @throws ConfigurationException if the button is not in the controller_button section
+	 */
+	public int getHandle(String name) {
+		Integer handle = fHandles.get(name);
+		if (handle == null) {
+			throw new ConfigurationException("Controller button " + name + " does not exist.");
+		}
+		return handle;
+	}
+
+	/**
+	 * Reads every button and works out this frame's edges, run once per frame before anything queries the state
+	 */
+	public void update() {
+		update(System.nanoTime());
+	}
+
+	/**
+	 * The same as update() for a frame at the given System.nanoTime() based time, simulations use it to run frames
+	 * faster than real time
+	 */
+	public void update(long time) {
+		mLastUpdateTime = mUpdateTime;
+		mLastViewTime = mLastUpdateTime;
+		mUpdateTime = time;
+
+		for (int port = 0; port < fPressed.length; port++) {
+			fRising[port] = fPressed[port];
+			fPressed[port] = 0;
+		}
+		for (int b = 0; b < fNames.length; b++) {
+			if (fSharedInputValues.getBoolean(fNames[b])) {
+				fPressed[fButtonHandles[b] / BITS] |= 1L << fButtonHandles[b];
+			}
+		}
+		for (int port = 0; port < fPressed.length; port++) {
+			long last = fRising[port];
+			fRising[port] = fPressed[port] & ~last;
+			fFalling[port] = ~fPressed[port] & last;
+
+			long rising = fRising[port];
+			while (rising != 0) {
+				fPressTimes[port * BITS + Long.numberOfTrailingZeros(rising)] = mUpdateTime;
+				rising &= rising - 1;
+			}
+			for (int w = 0; w < mWindowRising.length; w++) {
+				mWindowRising[w][port] |= fRising[port];
+				mWindowFalling[w][port] |= fFalling[port];
+			}
+		}
+	}
+
+	/**
+	 * Adds an edge window, call when the consumer is created rather than every frame
+	 */
+	public int registerEdgeWindow() {
+		int window = mWindowRising.length;
+		mWindowRising = Arrays.copyOf(mWindowRising, window + 1);
+		mWindowFalling = Arrays.copyOf(mWindowFalling, window + 1);
+		mWindowEndTimes = Arrays.copyOf(mWindowEndTimes, window + 1);
+		mWindowRising[window] = new long[fPressed.length];
+		mWindowFalling[window] = new long[fPressed.length];
+		restartEdgeWindow(window);
+		return window;
+	}
+
+	/**
+	 * Drops what the window has collected so it starts from this frame, for example when a state is entered
+	 */
+	public void restartEdgeWindow(int window) {
+		System.arraycopy(fRising, 0, mWindowRising[window], 0, fRising.length);
+		System.arraycopy(fFalling, 0, mWindowFalling[window], 0, fFalling.length);
+		mWindowEndTimes[window] = mLastUpdateTime;
+	}
+
+	/**
+	 * Makes the edge queries and isHeldFor() cover every frame since the window last ended, until endWindow()
+	 */
+	public void beginWindow(int window) {
+		mRisingView = mWindowRising[window];
+		mFallingView = mWindowFalling[window];
+		mLastViewTime = mWindowEndTimes[window];
+	}
+
+	/**
+	 * Clears the window and goes back to answering for this frame alone
+	 */
+	public void endWindow(int window) {
+		Arrays.fill(mWindowRising[window], 0);
+		Arrays.fill(mWindowFalling[window], 0);
+		mWindowEndTimes[window] = mUpdateTime;
+		mRisingView = fRising;
+		mFallingView = fFalling;
+		mLastViewTime = mLastUpdateTime;
+	}
+
+	/**
+	 * The time of the current frame in nanoseconds, behaviors measure time between updates with it
+	 */
+	public long getUpdateTime() {
+		return mUpdateTime;
+	}
+
+	// Long shifts only use the low six bits of the distance, so 1L << handle is the button's bit within its port
+	public boolean isPressed(int handle) {
+		return (fPressed[handle / BITS] & 1L << handle) != 0;
+	}
+
+	public boolean isRisingEdge(int handle) {
+		return (mRisingView[handle / BITS] & 1L << handle) != 0;
+	}
+
+	public boolean isFallingEdge(int handle) {
+		return (mFallingView[handle / BITS] & 1L << handle) != 0;
+	}
+
+	/**
+	 * Milliseconds the button has been held, 0 if it is not pressed
+	 */
+	public long getHoldTime(int handle) {
+		return isPressed(handle) ? (mUpdateTime - fPressTimes[handle]) / 1_000_000 : 0;
+	}
+
+	/**
+	 * True on the one frame where the button has been held for the given milliseconds
+	 */
+	public boolean isHeldFor(int handle, long milliseconds) {
+		long threshold = milliseconds * 1_000_000;
+		return isPressed(handle) && mUpdateTime - fPressTimes[handle] >= threshold && mLastViewTime - fPressTimes[handle] < threshold;
+	}
+
+	/**
+	 * Bits of the pressed buttons on a port, for checking combinations in one go
+	 */
+	public long getPressedMask(int port) {
+		return port < fPressed.length ? fPressed[port] : 0;
+	}
+
+	public long getRisingMask(int port) {
+		return port < mRisingView.length ? mRisingView[port] : 0;
+	}
+
+	public long getFallingMask(int port) {
+		return port < mFallingView.length ? mFallingView[port] : 0;
+	}
+
+	/**
+	 * Returns a service that updates the state, it must run on the states thread right before the states service
+	 */
+	public Service getUpdateService() {
+		return new Service() {
+			@Override
+			public void startUp() {
+				sLogger.info("Tracking {} controller buttons on {} ports", fNames.length, fPressed.length);
+			}
+
+			@Override
+			public void runOneIteration() {
+				update();
+			}
+
+			@Override
+			public void shutDown() {
+			}
+		};
+	}
+
+	private static Map<String, Integer> loadButtons() {
+		Object file;
+		try (InputStream in = ControllerState.class.getClassLoader().getResourceAsStream(FILE)) {
+			if (in == null) {
+				throw new ConfigurationException("Could not find " + FILE);
+			}
+			file = new Yaml().load(in);
+		} catch (IOException e) {
+			throw new ConfigurationException("Could not read " + FILE + ": " + e.getMessage());
+		}
+
+		Object section = file instanceof Map ? ((Map<?, ?>) file).get(SECTION) : null;
+		Map<String, Integer> buttons = new LinkedHashMap<>();
+		if (!(section instanceof Map)) {
+			return buttons;
+		}
+		for (Map.Entry<?, ?> button : ((Map<?, ?>) section).entrySet()) {
+			Object port = button.getValue() instanceof Map ? ((Map<?, ?>) button.getValue()).get("port") : null;
+			if (!(port instanceof Number)) {
+				throw new ConfigurationException("Controller button " + button.getKey() + " needs a port");
+			}
+			buttons.put(String.valueOf(button.getKey()), ((Number) port).intValue());
+		}
+		return buttons;
+	}
+}
@@ -0,0 +1,50 @@
+package org.team1619.utilities.input;
+
+import org.uacr.utilities.YamlConfigParser;
+import org.uacr.utilities.injection.Inject;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The joystick shaping chains from input-shaping.yaml, read once and shared by every behavior that shapes axes
+ *
+ * Each set of channels is compiled the first time it is asked for. Shapers carry filter state, so every caller gets
+ * its own copy of the compiled stages.
+ */
+
+public class InputShaping {
+
+	private static final String FILE = "input-shaping.yaml";
+
+	private final YamlConfigParser fParser;
+	private final Map<List<String>, JoystickShaper> fCompiled;
+
+	@Inject
+	public InputShaping() {
+		this(FILE);
+	}
+
+	public InputShaping(String file) {
+		fParser = new YamlConfigParser();
+		fParser.load(file);
+		fCompiled = new HashMap<>();
+	}
+
+	/**
+	 * Returns a shaper for the named channels
+	 *
+	 * @throws org.uacr.models.exceptions.ConfigurationException if a channel or stage is not configured correctly
+	 */
+	public synchronized JoystickShaper create(String... channelNames) {
+		List<String> key = Arrays.asList(channelNames.clone());
+		JoystickShaper compiled = fCompiled.get(key);
+		if (compiled == null) {
+			compiled = JoystickShaper.compile(fParser, channelNames);
+			fCompiled.put(key, compiled);
+		}
+		return compiled.copy();
+	}
+}
@@ -0,0 +1,275 @@
+package org.team1619.utilities.input;
+
+import org.uacr.models.exceptions.ConfigurationException;
+import org.uacr.shared.abstractions.InputValues;
+import org.uacr.utilities.Config;
+import org.uacr.utilities.YamlConfigParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shapes joystick axes through a configurable chain of stages
+ *
+ * Each channel reads one input numeric and runs it through its stages from input-shaping.yaml. The chains are
+ * compiled once into flat primitive arrays, so update() runs without allocation or map lookups other than reading
+ * the raw inputs. Radial deadbands run first on the raw stick values wherever they appear in a chain, then the other
+ * stages run channel by channel in the order the channels were requested. Get shapers from InputShaping so the file
+ * is only read once.
+ *
+ * Stage types:
+ *   deadband         zeroes |x| < deadband and rescales the rest back to the full range, 0 <= deadband < 1
+ *   radial_deadband  the same on the length of the (x, partner) stick vector, applied to both channels, declare it
+ *                    on only one channel of the pair
+ *   scale            multiplies by scale, -1 inverts
+ *   expo             blends in x^3 by amount, 0 is linear and 1 is fully cubic
+ *   slew_rate        limits the change to rate per second
+ *   low_pass         first order low pass with time_constant seconds
+ */
+
+public class JoystickShaper {
+
+	private static final int DEADBAND = 0;
+	private static final int RADIAL_DEADBAND = 1;
+	private static final int SCALE = 2;
+	private static final int EXPO = 3;
+	private static final int SLEW_RATE = 4;
+	private static final int LOW_PASS = 5;
+
+	private static final double MAX_DELTA_TIME = 0.1;
+
+	private final String[] fChannelNames;
+	private final String[] fInputs;
+	private final double[] fValues;
+
+	private final int[] fOps;
+	private final int[] fChannels;
+	private final int[] fPartners;
+	private final double[] fParameters;
+	private final double[] fStates;
+
+	private long mLastUpdateTime;
+
+	private JoystickShaper(String[] channelNames, String[] inputs, int[] ops, int[] channels, int[] partners, double[] parameters) {
+		fChannelNames = channelNames;
+		fInputs = inputs;
+		fValues = new double[channelNames.length];
+		fOps = ops;
+		fChannels = channels;
+		fPartners = partners;
+		fParameters = parameters;
+		fStates = new double[ops.length];
+		mLastUpdateTime = 0;
+	}
+
+	/**
+	 * Returns a shaper with the same stages and its own filter state
+	 */
+	JoystickShaper copy() {
+		return new JoystickShaper(fChannelNames, fInputs, fOps, fChannels, fPartners, fParameters);
+	}
+
+	/**
+	 * Compiles the named channels from a loaded shaping file
+	 *
+	 * @throws ConfigurationException if a channel or stage is not configured correctly
+	 */
+	static JoystickShaper compile(YamlConfigParser parser, String... channelNames) {
+		String[] inputs = new String[channelNames.length];
+		// Radial deadbands are collected separately so they run ahead of every other stage
+		List<int[]> radialStages = new ArrayList<>();
+		List<Double> radialParameters = new ArrayList<>();
+		List<int[]> stages = new ArrayList<>();
+		List<Double> parameters = new ArrayList<>();
+
+		for (int c = 0; c < channelNames.length; c++) {
+			Config config = parser.getConfig(channelNames[c]);
+			inputs[c] = config.getString("input");
+
+			Object stageList = config.getData().get("stages");
+			if (stageList == null) {
+				continue;
+			}
+			if (!(stageList instanceof List)) {
+				throw new ConfigurationException("Stages for shaping channel " + channelNames[c] + " must be a list");
+			}
+
+			for (Object stage : (List<?>) stageList) {
+				if (!(stage instanceof Map)) {
+					throw new ConfigurationException("Shaping stage " + stage + " on channel " + channelNames[c] + " must be a map");
+				}
+				Map<?, ?> stageConfig = (Map<?, ?>) stage;
+				String type = String.valueOf(stageConfig.get("type"));
+				int partner = -1;
+				double parameter;
+				int op;
+
+				switch (type) {
+					case "deadband":
+						op = DEADBAND;
+						parameter = getDeadband(channelNames[c], stageConfig);
+						break;
+					case "radial_deadband":
+						op = RADIAL_DEADBAND;
+						parameter = getDeadband(channelNames[c], stageConfig);
+						partner = indexOf(channelNames, String.valueOf(stageConfig.get("partner")));
+						if (partner < 0 || partner == c) {
+							throw new ConfigurationException("Radial deadband on " + channelNames[c] + " needs a partner channel from " + String.join(", ", channelNames));
+						}
+						for (int[] radialStage : radialStages) {
+							if ((radialStage[1] == c && radialStage[2] == partner) || (radialStage[1] == partner && radialStage[2] == c)) {
+								throw new ConfigurationException("Radial deadband on " + channelNames[c] + " and " + channelNames[partner] + " is declared more than once");
+							}
+						}
+						break;
+					case "scale":
+						op = SCALE;
+						parameter = getParameter(channelNames[c], stageConfig, "scale");
+						break;
+					case "expo":
+						op = EXPO;
+						parameter = getParameter(channelNames[c], stageConfig, "amount");
+						break;
+					case "slew_rate":
+						op = SLEW_RATE;
+						parameter = getParameter(channelNames[c], stageConfig, "rate");
+						break;
+					case "low_pass":
+						op = LOW_PASS;
+						parameter = getParameter(channelNames[c], stageConfig, "time_constant");
+						break;
+					default:
+						throw new ConfigurationException("Shaping stage type " + type + " does not exist.");
+				}
+
+				if (op == RADIAL_DEADBAND) {
+					radialStages.add(new int[]{op, c, partner});
+					radialParameters.add(parameter);
+				} else {
+					stages.add(new int[]{op, c, partner});
+					parameters.add(parameter);
+				}
+			}
+		}
+		stages.addAll(0, radialStages);
+		parameters.addAll(0, radialParameters);
+
+		int[] ops = new int[stages.size()];
+		int[] channels = new int[stages.size()];
+		int[] partners = new int[stages.size()];
+		double[] parameterArray = new double[stages.size()];
+		for (int s = 0; s < stages.size(); s++) {
+			ops[s] = stages.get(s)[0];
+			channels[s] = stages.get(s)[1];
+			partners[s] = stages.get(s)[2];
+			parameterArray[s] = parameters.get(s);
+		}
+
+		return new JoystickShaper(channelNames.clone(), inputs, ops, channels, partners, parameterArray);
+	}
+
+	/**
+	 * Returns the index to pass to get() for a channel
+	 */
+	public int getChannel(String name) {
+		int channel = indexOf(fChannelNames, name);
+		if (channel < 0) {
+			throw new ConfigurationException("Shaping channel " + name + " does not exist.");
+		}
+		return channel;
+	}
+
+	/**
+	 * Clears filter state, the next update starts from the raw inputs
+	 */
+	public void reset() {
+		mLastUpdateTime = 0;
+	}
+
+	/**
+	 * Reads the raw inputs and runs every stage, call once per frame
+	 */
+	public void update(InputValues inputValues) {
+		update(inputValues, System.nanoTime());
+	}
+
+	/**
+	 * The same as update() for a frame at the given System.nanoTime() based time
+	 */
+	public void update(InputValues inputValues, long now) {
+		boolean first = mLastUpdateTime == 0;
+		double deltaTime = first ? 0 : Math.min(MAX_DELTA_TIME, (now - mLastUpdateTime) / 1_000_000_000.0);
+		mLastUpdateTime = now;
+
+		for (int c = 0; c < fInputs.length; c++) {
+			fValues[c] = inputValues.getNumeric(fInputs[c]);
+		}
+
+		for (int s = 0; s < fOps.length; s++) {
+			int c = fChannels[s];
+			double x = fValues[c];
+			double parameter = fParameters[s];
+
+			switch (fOps[s]) {
+				case DEADBAND:
+					fValues[c] = Math.abs(x) < parameter ? 0 : Math.copySign((Math.abs(x) - parameter) / (1 - parameter), x);
+					break;
+				case RADIAL_DEADBAND: {
+					int p = fPartners[s];
+					double magnitude = Math.sqrt(x * x + fValues[p] * fValues[p]);
+					double scale = magnitude <= parameter ? 0 : (magnitude - parameter) / (1 - parameter) / magnitude;
+					fValues[c] = x * scale;
+					fValues[p] = fValues[p] * scale;
+					break;
+				}
+				case SCALE:
+					fValues[c] = x * parameter;
+					break;
+				case EXPO:
+					fValues[c] = (1 - parameter) * x + parameter * x * x * x;
+					break;
+				case SLEW_RATE: {
+					double maxChange = parameter * deltaTime;
+					fValues[c] = first ? x : fStates[s] + Math.max(-maxChange, Math.min(maxChange, x - fStates[s]));
+					fStates[s] = fValues[c];
+					break;
+				}
+				case LOW_PASS:
+					fValues[c] = first ? x : fStates[s] + (x - fStates[s]) * deltaTime / (parameter + deltaTime);
+					fStates[s] = fValues[c];
+					break;
+			}
+		}
+	}
+
+	public double get(int channel) {
+		return fValues[channel];
+	}
+
+	private static double getParameter(String channel, Map<?, ?> stage, String key) {
+		Object value = stage.get(key);
+		if (!(value instanceof Number)) {
+			throw new ConfigurationException("Shaping stage " + stage.get("type") + " on channel " + channel + " needs a number for " + key);
+		}
+		return ((Number) value).doubleValue();
+	}
+
+	// A deadband of 1 or more would zero the whole stick range and divide by zero when rescaling
+	private static double getDeadband(String channel, Map<?, ?> stage) {
+		double deadband = getParameter(channel, stage, "deadband");
+		if (deadband < 0 || deadband >= 1) {
+			throw new ConfigurationException("Deadband for shaping stage " + stage.get("type") + " on channel " + channel + " must be at least 0 and less than 1");
+		}
+		return deadband;
+	}
+
+	private static int indexOf(String[] names, String name) {
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,194 @@
+package org.team1619.utilities.overload;
+
+import org.team1619.utilities.trace.FrameTracer;
+import org.uacr.shared.abstractions.InputValues;
+import org.uacr.shared.abstractions.RobotConfiguration;
+import org.uacr.utilities.injection.Inject;
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+import org.uacr.utilities.services.Service;
+
+/**
+ * Sheds non-critical work when core frames run over their budget
+ *
+ * Each run of degrade_frames consecutive frames over budget moves one level up:
+ *   1 info services (logging, web dashboard) run every info_divisor frames
+ *   2 debug signals are no longer published
+ *   3 behaviors listed in non_essential_behaviors skip their updates
+ * Levels come back down one at a time once every frame has stayed under restore_fraction of the budget for
+ * restore_time, so the robot does not flap between levels. Every change is logged, published as ipn_overload_level
+ * and ips_overload_event, and degrading asks the tracer for a trace of the frames that caused it.
+ */
+
+public class OverloadController {
+
+	public static final int NORMAL = 0;
+	public static final int THROTTLE_INFO = 1;
+	public static final int DEBUG_OFF = 2;
+	public static final int SHED_BEHAVIORS = 3;
+	private static final String[] sLevelNames = {"normal", "throttle_info", "debug_off", "shed_behaviors"};
+
+	private static final Logger sLogger = LogManager.getLogger(OverloadController.class);
+
+	private final InputValues fSharedInputValues;
+	private final FrameTracer fTracer;
+	private final boolean fEnabled;
+	private final long fBudget;
+	private final int fDegradeFrames;
+	private final long fRestoreThreshold;
+	private final long fRestoreTime;
+	private final int fInfoDivisor;
+
+	private volatile int mLevel;
+	private int mFramesOverBudget;
+	private long mHeadroomSince;
+	private long mFrameStart;
+	private long mMaxFrameTime;
+	private volatile long mLastFrameTime;
+	private int mEvents;
+
+	@Inject
+	public OverloadController(InputValues inputValues, RobotConfiguration robotConfiguration, FrameTracer tracer) {
+		fSharedInputValues = inputValues;
+		fTracer = tracer;
+		fEnabled = robotConfiguration.getBoolean("global_overload", "enabled");
+		fBudget = (long) (robotConfiguration.getDouble("global_overload", "budget") * 1_000_000);
+		fDegradeFrames = robotConfiguration.getInt("global_overload", "degrade_frames");
+		fRestoreThreshold = (long) (fBudget * robotConfiguration.getDouble("global_overload", "restore_fraction"));
+		fRestoreTime = robotConfiguration.getInt("global_overload", "restore_time") * 1_000_000L;
+		fInfoDivisor = Math.max(1, robotConfiguration.getInt("global_overload", "info_divisor"));
+
+		mLevel = NORMAL;
+		mFramesOverBudget = 0;
+		mHeadroomSince = System.nanoTime();
+		mMaxFrameTime = 0;
+		mLastFrameTime = 0;
+		mEvents = 0;
+	}
+
+	public int getLevel() {
+		return mLevel;
+	}
+
+	public boolean isDebugEnabled() {
+		return mLevel < DEBUG_OFF;
+	}
+
+	public boolean isSheddingBehaviors() {
+		return mLevel >= SHED_BEHAVIORS;
+	}
+
+	/**
+	 * Number of frames between runs of an info service at the current level
+	 */
+	public int getInfoDivisor() {
+		return mLevel >= THROTTLE_INFO ? fInfoDivisor : 1;
+	}
+
+	/**
+	 * The time of the last finished core frame in nanoseconds
+	 */
+	public long getLastFrameTime() {
+		return mLastFrameTime;
+	}
+
+	/**
+	 * Reads non_essential_behaviors from the given configuration, so behaviors rebuilt with reloaded configuration see
+	 * changes to the list
+	 */
+	public boolean isNonEssential(RobotConfiguration robotConfiguration, String behaviorName) {
+		for (Object behavior : robotConfiguration.getList("global_overload", "non_essential_behaviors")) {
+			if (String.valueOf(behavior).equals(behaviorName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Feeds one core frame time in nanoseconds, called from the core thread
+	 */
+	public void recordFrame(long frameTime) {
+		mLastFrameTime = frameTime;
+		if (!fEnabled) {
+			return;
+		}
+		long now = System.nanoTime();
+		mMaxFrameTime = Math.max(mMaxFrameTime, frameTime);
+
+		if (frameTime > fBudget) {
+			mFramesOverBudget++;
+		} else {
+			mFramesOverBudget = 0;
+		}
+		if (frameTime > fRestoreThreshold) {
+			mHeadroomSince = now;
+		}
+
+		if (mFramesOverBudget >= fDegradeFrames && mLevel < SHED_BEHAVIORS) {
+			setLevel(mLevel + 1, String.format("%d frames over the %.1f ms budget, last %.1f ms", mFramesOverBudget, fBudget / 1e6, frameTime / 1e6));
+			mFramesOverBudget = 0;
+			mHeadroomSince = now;
+			fTracer.requestDump("overload");
+		} else if (now - mHeadroomSince >= fRestoreTime && mLevel > NORMAL) {
+			setLevel(mLevel - 1, String.format("frames under %.1f ms for %d ms, max %.1f ms", fRestoreThreshold / 1e6, fRestoreTime / 1_000_000, mMaxFrameTime / 1e6));
+			mHeadroomSince = now;
+		}
+	}
+
+	/**
+	 * Returns a service that marks the start of a core frame, it must run first on the core thread
+	 */
+	public Service getBeginService() {
+		return new Service() {
+			@Override
+			public void startUp() {
+				fSharedInputValues.setNumeric("ipn_overload_level", mLevel);
+				fSharedInputValues.setString("ips_overload_event", "");
+			}
+
+			@Override
+			public void runOneIteration() {
+				mFrameStart = System.nanoTime();
+			}
+
+			@Override
+			public void shutDown() {
+			}
+		};
+	}
+
+	/**
+	 * Returns a service that ends a core frame, it must run last on the core thread
+	 */
+	public Service getEndService() {
+		return new Service() {
+			@Override
+			public void startUp() {
+			}
+
+			@Override
+			public void runOneIteration() {
+				recordFrame(System.nanoTime() - mFrameStart);
+			}
+
+			@Override
+			public void shutDown() {
+			}
+		};
+	}
+
+	private void setLevel(int level, String reason) {
+		mEvents++;
+		String event = String.format("Overload event %d: %s -> %s, %s", mEvents, sLevelNames[mLevel], sLevelNames[level], reason);
+		if (level > mLevel) {
+			sLogger.warn(event);
+		} else {
+			sLogger.info(event);
+		}
+		mLevel = level;
+		mMaxFrameTime = 0;
+		fSharedInputValues.setNumeric("ipn_overload_level", level);
+		fSharedInputValues.setString("ips_overload_event", event);
+	}
+}
@@ -0,0 +1,50 @@
+package org.team1619.utilities.overload;
+
+import org.uacr.models.behavior.Behavior;
+import org.uacr.utilities.Config;
+
+import java.util.Set;
+
+/**
+ * Skips the updates of a non-essential behavior while the overload controller is shedding behaviors
+ *
+ * Outputs keep their last values while updates are skipped, so only list behaviors that are safe to pause.
+ */
+
+public class SheddableBehavior implements Behavior {
+
+	private final OverloadController fOverloadController;
+	private final Behavior fBehavior;
+
+	public SheddableBehavior(OverloadController overloadController, Behavior behavior) {
+		fOverloadController = overloadController;
+		fBehavior = behavior;
+	}
+
+	@Override
+	public void initialize(String stateName, Config config) {
+		fBehavior.initialize(stateName, config);
+	}
+
+	@Override
+	public void update() {
+		if (!fOverloadController.isSheddingBehaviors()) {
+			fBehavior.update();
+		}
+	}
+
+	@Override
+	public void dispose() {
+		fBehavior.dispose();
+	}
+
+	@Override
+	public boolean isDone() {
+		return fBehavior.isDone();
+	}
+
+	@Override
+	public Set<String> getSubsystems() {
+		return fBehavior.getSubsystems();
+	}
+}
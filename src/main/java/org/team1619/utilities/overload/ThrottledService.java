@@ -0,0 +1,38 @@
+package org.team1619.utilities.overload;
+
+import org.uacr.utilities.services.Service;
+
+/**
+ * Runs another service only every few frames while the overload controller is throttling info services
+ */
+
+public class ThrottledService implements Service {
+
+	private final OverloadController fOverloadController;
+	private final Service fService;
+
+	private int mSkipped;
+
+	public ThrottledService(OverloadController overloadController, Service service) {
+		fOverloadController = overloadController;
+		fService = service;
+	}
+
+	@Override
+	public void startUp() throws Exception {
+		fService.startUp();
+	}
+
+	@Override
+	public void runOneIteration() throws Exception {
+		if (++mSkipped >= fOverloadController.getInfoDivisor()) {
+			mSkipped = 0;
+			fService.runOneIteration();
+		}
+	}
+
+	@Override
+	public void shutDown() throws Exception {
+		fService.shutDown();
+	}
+}
@@ -0,0 +1,190 @@
+package org.team1619.utilities.pose;
+
+import org.team1619.utilities.swerve.SwerveModuleOptimizer;
+import org.uacr.shared.abstractions.RobotConfiguration;
+import org.uacr.utilities.injection.Inject;
+
+/**
+ * Fixed size history of timestamped robot poses for looking up where the robot was when a delayed measurement
+ * was taken
+ *
+ * Poses are stored in primitive ring buffers, lookups are a binary search with linear interpolation of position
+ * and shortest way interpolation of heading. Positions are in the odometry units, headings in degrees and times
+ * in seconds. Only use from the core thread.
+ *
+ * add() takes raw odometry and stores it moved by the accumulated correction, so once a measurement has corrected
+ * the history every later sample continues from the corrected pose instead of jumping back to raw odometry.
+ */
+
+public class PoseHistory {
+
+	private final int fCapacity;
+	private final double[] fTimes;
+	private final double[] fX;
+	private final double[] fY;
+	private final double[] fHeadings;
+	private final double[] fRecordedPose;
+
+	private int mStart;
+	private int mSize;
+
+	// Rigid transform from raw odometry to the corrected pose, corrected = rotate(raw) + offset
+	private double mCorrectionRotation;
+	private double mCorrectionCos;
+	private double mCorrectionSin;
+	private double mCorrectionX;
+	private double mCorrectionY;
+
+	@Inject
+	public PoseHistory(RobotConfiguration robotConfiguration) {
+		this(robotConfiguration.getInt("global_pose_history", "capacity"));
+	}
+
+	public PoseHistory(int capacity) {
+		fCapacity = capacity;
+		fTimes = new double[capacity];
+		fX = new double[capacity];
+		fY = new double[capacity];
+		fHeadings = new double[capacity];
+		fRecordedPose = new double[3];
+		clear();
+	}
+
+	/**
+	 * Empties the history and drops the correction, call when odometry is reset
+	 */
+	public void clear() {
+		mStart = 0;
+		mSize = 0;
+		mCorrectionRotation = 0;
+		mCorrectionCos = 1;
+		mCorrectionSin = 0;
+		mCorrectionX = 0;
+		mCorrectionY = 0;
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * Adds a raw odometry pose, replacing the oldest one when full. Poses older than the newest one are ignored.
+	 */
+	public void add(double time, double x, double y, double heading) {
+		if (mSize > 0 && time <= fTimes[index(mSize - 1)]) {
+			return;
+		}
+
+		int i;
+		if (mSize < fCapacity) {
+			i = index(mSize);
+			mSize++;
+		} else {
+			i = mStart;
+			mStart = (mStart + 1) % fCapacity;
+		}
+		fTimes[i] = time;
+		fX[i] = x * mCorrectionCos - y * mCorrectionSin + mCorrectionX;
+		fY[i] = x * mCorrectionSin + y * mCorrectionCos + mCorrectionY;
+		fHeadings[i] = heading + mCorrectionRotation;
+	}
+
+	/**
+	 * Writes the newest pose into pose as {x, y, heading}, returns false if the history is empty
+	 */
+	public boolean getLatest(double[] pose) {
+		if (mSize == 0) {
+			return false;
+		}
+		int i = index(mSize - 1);
+		pose[0] = fX[i];
+		pose[1] = fY[i];
+		pose[2] = fHeadings[i];
+		return true;
+	}
+
+	/**
+	 * Writes the pose at the given time into pose as {x, y, heading}, interpolating between the poses on either side
+	 *
+	 * @return false if the history is empty or the time is outside of it
+	 */
+	public boolean getPose(double time, double[] pose) {
+		if (mSize == 0 || time < fTimes[index(0)] || time > fTimes[index(mSize - 1)]) {
+			return false;
+		}
+
+		int after = search(time);
+		int i1 = index(after);
+		if (after == 0 || fTimes[i1] == time) {
+			pose[0] = fX[i1];
+			pose[1] = fY[i1];
+			pose[2] = fHeadings[i1];
+			return true;
+		}
+
+		int i0 = index(after - 1);
+		double t = (time - fTimes[i0]) / (fTimes[i1] - fTimes[i0]);
+		pose[0] = fX[i0] + (fX[i1] - fX[i0]) * t;
+		pose[1] = fY[i0] + (fY[i1] - fY[i0]) * t;
+		pose[2] = fHeadings[i0] + SwerveModuleOptimizer.wrapDegrees(fHeadings[i1] - fHeadings[i0]) * t;
+		return true;
+	}
+
+	/**
+	 * Corrects the history with a measurement of the pose at an earlier time
+	 *
+	 * Every pose from that time on is moved by the same rigid transform that takes the recorded pose at that time
+	 * onto the measured pose, which is the same as replaying the motion since then from the corrected pose. The
+	 * transform is also added to the correction applied to later raw odometry.
+	 *
+	 * @return false if the time is outside of the history
+	 */
+	public boolean applyCorrection(double time, double x, double y, double heading) {
+		double[] recorded = fRecordedPose;
+		if (!getPose(time, recorded)) {
+			return false;
+		}
+
+		double rotation = Math.toRadians(heading - recorded[2]);
+		double cos = Math.cos(rotation);
+		double sin = Math.sin(rotation);
+
+		for (int n = search(time); n < mSize; n++) {
+			int i = index(n);
+			double dx = fX[i] - recorded[0];
+			double dy = fY[i] - recorded[1];
+			fX[i] = x + dx * cos - dy * sin;
+			fY[i] = y + dx * sin + dy * cos;
+			fHeadings[i] += heading - recorded[2];
+		}
+
+		double dx = mCorrectionX - recorded[0];
+		double dy = mCorrectionY - recorded[1];
+		mCorrectionX = x + dx * cos - dy * sin;
+		mCorrectionY = y + dx * sin + dy * cos;
+		mCorrectionRotation += heading - recorded[2];
+		mCorrectionCos = Math.cos(Math.toRadians(mCorrectionRotation));
+		mCorrectionSin = Math.sin(Math.toRadians(mCorrectionRotation));
+		return true;
+	}
+
+	// Returns the position (oldest = 0) of the first pose at or after the time, or mSize if there is none
+	private int search(double time) {
+		int low = 0;
+		int high = mSize;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (fTimes[index(middle)] < time) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private int index(int position) {
+		int i = mStart + position;
+		return i >= fCapacity ? i - fCapacity : i;
+	}
+}
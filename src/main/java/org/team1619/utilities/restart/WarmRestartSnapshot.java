@@ -0,0 +1,188 @@
+package org.team1619.utilities.restart;
+
+import org.uacr.models.exceptions.ConfigurationException;
+import org.uacr.shared.abstractions.InputValues;
+import org.uacr.shared.abstractions.RobotConfiguration;
+import org.uacr.utilities.injection.Inject;
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps key input values in a memory-mapped file so a restarted robot program can pick up where it left off
+ *
+ * capture() copies the configured booleans and numerics into the mapping every frame. That is only memory writes,
+ * the kernel keeps the pages when the program dies and a background thread forces them to disk so they also survive
+ * a roboRIO reboot. A sequence number that is odd while a capture is in progress marks torn snapshots. The first
+ * call to restore() puts the values back into the input values if ipb_fms_attached says a match is in progress and
+ * the snapshot was written within the staleness window by the same list of values, and sets ipb_warm_restarted.
+ * A clean shutdown, including the one a deploy does, clears the snapshot so only a program that died mid-match
+ * picks it up.
+ *
+ * Layout: magic, layout hash, sequence, wall clock time of the capture, one byte per boolean then the numerics.
+ */
+
+public class WarmRestartSnapshot {
+
+	private static final Logger sLogger = LogManager.getLogger(WarmRestartSnapshot.class);
+
+	private static final int MAGIC = 0x16195A5A;
+	private static final int MAGIC_OFFSET = 0;
+	private static final int LAYOUT_OFFSET = 4;
+	private static final int SEQUENCE_OFFSET = 8;
+	private static final int TIME_OFFSET = 16;
+	private static final int VALUES_OFFSET = 24;
+
+	private final boolean fEnabled;
+	private final Path fPath;
+	private final long fStaleness;
+	private final String[] fBooleans;
+	private final String[] fNumerics;
+	private final int fNumericsOffset;
+	private final int fLayoutHash;
+
+	private MappedByteBuffer mBuffer;
+	private long mSequence;
+	private volatile boolean mRestoreAttempted;
+	private boolean mRestored;
+	private boolean mCleared;
+
+	/**
+	 * @throws ConfigurationException if the file is not an absolute path, the working directory differs between deploys
+	 */
+	@Inject
+	public WarmRestartSnapshot(RobotConfiguration robotConfiguration) {
+		fEnabled = robotConfiguration.getBoolean("global_warm_restart", "enabled");
+		String file = robotConfiguration.getString("global_warm_restart", "file");
+		fPath = Paths.get(file);
+		if (!fPath.isAbsolute()) {
+			throw new ConfigurationException("Warm restart snapshot file " + file + " must be an absolute path");
+		}
+		fStaleness = robotConfiguration.getInt("global_warm_restart", "staleness");
+		fBooleans = toNames(robotConfiguration.getList("global_warm_restart", "booleans"));
+		fNumerics = toNames(robotConfiguration.getList("global_warm_restart", "numerics"));
+		fNumericsOffset = (VALUES_OFFSET + fBooleans.length + 7) / 8 * 8;
+		fLayoutHash = String.join(",", fBooleans).hashCode() * 31 + String.join(",", fNumerics).hashCode();
+
+		mSequence = 0;
+		mRestoreAttempted = false;
+		mRestored = false;
+		mCleared = false;
+		if (fEnabled) {
+			map(robotConfiguration.getInt("global_warm_restart", "flush_interval"));
+		}
+	}
+
+	/**
+	 * Restores the snapshot into the input values the first time it is called, later calls return the same result
+	 *
+	 * @return true if the values were restored from a fresh snapshot
+	 */
+	public synchronized boolean restore(InputValues inputValues) {
+		if (mRestoreAttempted) {
+			return mRestored;
+		}
+		mRestoreAttempted = true;
+
+		MappedByteBuffer buffer = mBuffer;
+		if (buffer == null || buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(LAYOUT_OFFSET) != fLayoutHash) {
+			return false;
+		}
+		if (!inputValues.getBoolean("ipb_fms_attached")) {
+			sLogger.info("Not restoring warm restart snapshot from {}, no match in progress", fPath);
+			return false;
+		}
+		long sequence = buffer.getLong(SEQUENCE_OFFSET);
+		long age = System.currentTimeMillis() - buffer.getLong(TIME_OFFSET);
+		if (sequence % 2 != 0 || age < 0 || age > fStaleness) {
+			sLogger.info("Not restoring warm restart snapshot from {}, {} ms old", fPath, age);
+			return false;
+		}
+
+		for (int b = 0; b < fBooleans.length; b++) {
+			inputValues.setBoolean(fBooleans[b], buffer.get(VALUES_OFFSET + b) != 0);
+		}
+		for (int n = 0; n < fNumerics.length; n++) {
+			inputValues.setNumeric(fNumerics[n], buffer.getDouble(fNumericsOffset + n * 8));
+		}
+		inputValues.setBoolean("ipb_warm_restarted", true);
+		mSequence = sequence;
+		mRestored = true;
+		sLogger.info("Restored warm restart snapshot from {}, {} ms old", fPath, age);
+		return true;
+	}
+
+	/**
+	 * Copies the current values into the snapshot, called from the core thread every frame. Nothing is captured until
+	 * restore() has had its chance to read the previous snapshot.
+	 */
+	public synchronized void capture(InputValues inputValues) {
+		MappedByteBuffer buffer = mBuffer;
+		if (buffer == null || !mRestoreAttempted || mCleared) {
+			return;
+		}
+
+		buffer.putLong(SEQUENCE_OFFSET, ++mSequence);
+		for (int b = 0; b < fBooleans.length; b++) {
+			buffer.put(VALUES_OFFSET + b, inputValues.getBoolean(fBooleans[b]) ? (byte) 1 : (byte) 0);
+		}
+		for (int n = 0; n < fNumerics.length; n++) {
+			buffer.putDouble(fNumericsOffset + n * 8, inputValues.getNumeric(fNumerics[n]));
+		}
+		buffer.putLong(TIME_OFFSET, System.currentTimeMillis());
+		buffer.putInt(LAYOUT_OFFSET, fLayoutHash);
+		buffer.putInt(MAGIC_OFFSET, MAGIC);
+		buffer.putLong(SEQUENCE_OFFSET, ++mSequence);
+	}
+
+	/**
+	 * Invalidates the snapshot and stops capturing, so the next boot starts fresh
+	 */
+	public synchronized void clear() {
+		MappedByteBuffer buffer = mBuffer;
+		mCleared = true;
+		if (buffer != null) {
+			buffer.putInt(MAGIC_OFFSET, 0);
+			buffer.force();
+		}
+	}
+
+	private void map(int flushInterval) {
+		int size = fNumericsOffset + fNumerics.length * 8;
+		try (FileChannel channel = FileChannel.open(fPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			mBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		} catch (IOException e) {
+			sLogger.error("Could not map warm restart snapshot {}: {}", fPath, e.getMessage());
+			return;
+		}
+
+		MappedByteBuffer buffer = mBuffer;
+		ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Warm restart flush");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(buffer::force, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+		// Runs on any orderly JVM exit, including the signal a deploy stops the robot program with, but not after a
+		// brownout, a kill -9 or a JVM crash
+		Runtime.getRuntime().addShutdownHook(new Thread(this::clear, "Warm restart clear"));
+	}
+
+	private static String[] toNames(List<Object> values) {
+		String[] names = new String[values.size()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = String.valueOf(values.get(i));
+		}
+		return names;
+	}
+}
@@ -0,0 +1,4 @@
+@NonNullByDefault
+package org.team1619.utilities.restart;
+
+import org.uacr.NonNullByDefault;
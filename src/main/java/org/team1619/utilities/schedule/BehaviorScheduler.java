@@ -0,0 +1,94 @@
+package org.team1619.utilities.schedule;
+
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+import org.uacr.utilities.services.Service;
+
+/**
+ * Counts states frames and gives decimated behaviors staggered phases so their updates do not land on the same frame
+ *
+ * A behavior with update divisor d updates on the frames where frame % d == phase. Phases are handed out when
+ * behaviors are created by picking, over a window of HORIZON frames, the phase whose frames already carry the fewest
+ * decimated updates. HORIZON is divisible by every divisor up to 6 and by 10, 12, 15, 20 and 30, other divisors
+ * take turns round robin. Their updates drift across the window from one pass to the next, so they are counted on the
+ * frames they land on in the first pass, which keeps later picks from stacking on them.
+ */
+
+public class BehaviorScheduler {
+
+	private static final Logger sLogger = LogManager.getLogger(BehaviorScheduler.class);
+
+	private static final int HORIZON = 60;
+
+	// Decimated updates on each frame of the window
+	private final int[] fLoad;
+	private int mNextPhase;
+	private volatile long mFrame;
+
+	public BehaviorScheduler() {
+		fLoad = new int[HORIZON];
+		mNextPhase = 0;
+		mFrame = 0;
+	}
+
+	public long getFrame() {
+		return mFrame;
+	}
+
+	/**
+	 * Reserves the least loaded phase for a behavior updating every divisor frames
+	 */
+	public synchronized int assignPhase(String behaviorName, int divisor) {
+		int phase;
+		if (HORIZON % divisor == 0) {
+			phase = 0;
+			int leastLoad = Integer.MAX_VALUE;
+			for (int candidate = 0; candidate < divisor; candidate++) {
+				int load = 0;
+				for (int frame = candidate; frame < HORIZON; frame += divisor) {
+					load += fLoad[frame];
+				}
+				if (load < leastLoad) {
+					leastLoad = load;
+					phase = candidate;
+				}
+			}
+		} else {
+			phase = mNextPhase++ % divisor;
+		}
+		for (int frame = phase; frame < HORIZON; frame += divisor) {
+			fLoad[frame]++;
+		}
+		sLogger.debug("Behavior {} updates every {} frames at phase {}", behaviorName, divisor, phase);
+		return phase;
+	}
+
+	/**
+	 * Gives back a phase from assignPhase(), for a behavior that was rebuilt with a different divisor
+	 */
+	public synchronized void releasePhase(int divisor, int phase) {
+		for (int frame = phase; frame < HORIZON; frame += divisor) {
+			fLoad[frame]--;
+		}
+	}
+
+	/**
+	 * Returns a service that advances the frame count, it must run on the states thread right before the states service
+	 */
+	public Service getFrameService() {
+		return new Service() {
+			@Override
+			public void startUp() {
+			}
+
+			@Override
+			public void runOneIteration() {
+				mFrame++;
+			}
+
+			@Override
+			public void shutDown() {
+			}
+		};
+	}
+}
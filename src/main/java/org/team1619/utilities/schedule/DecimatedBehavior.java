@@ -0,0 +1,83 @@
+package org.team1619.utilities.schedule;
+
+import org.team1619.utilities.input.ControllerState;
+import org.uacr.models.behavior.Behavior;
+import org.uacr.utilities.Config;
+
+import java.util.Set;
+
+/**
+ * Runs a behavior's update only every few states frames, on the phase the scheduler gave it
+ *
+ * The first update after entering a state always runs so the behavior sets its outputs straight away. Outputs keep
+ * their last values on skipped frames, and behaviors that integrate over time should measure it themselves rather
+ * than count updates. Controller edges and isHeldFor() are answered through an edge window, so a button tapped on a
+ * skipped frame is still seen on the next update.
+ */
+
+public class DecimatedBehavior implements Behavior {
+
+	private final BehaviorScheduler fScheduler;
+	private final ControllerState fControllerState;
+	private final DecimationSlot fSlot;
+	private final Behavior fBehavior;
+	private final int fDivisor;
+	private final int fPhase;
+
+	private int mEdgeWindow;
+	private boolean mUpdatedSinceInitialize;
+
+	public DecimatedBehavior(BehaviorScheduler scheduler, ControllerState controllerState, String behaviorName, int divisor, Behavior behavior) {
+		this(scheduler, controllerState, new DecimationSlot(scheduler, controllerState, behaviorName), divisor, behavior);
+	}
+
+	/**
+	 * @param slot the phase and edge window shared with the behavior this one replaces, if it is a rebuild
+	 */
+	public DecimatedBehavior(BehaviorScheduler scheduler, ControllerState controllerState, DecimationSlot slot, int divisor, Behavior behavior) {
+		fScheduler = scheduler;
+		fControllerState = controllerState;
+		fSlot = slot;
+		fBehavior = behavior;
+		fDivisor = divisor;
+		fPhase = slot.reservePhase(divisor);
+		mEdgeWindow = -1;
+		mUpdatedSinceInitialize = false;
+	}
+
+	@Override
+	public void initialize(String stateName, Config config) {
+		mEdgeWindow = fSlot.getEdgeWindow();
+		mUpdatedSinceInitialize = false;
+		fControllerState.restartEdgeWindow(mEdgeWindow);
+		fBehavior.initialize(stateName, config);
+	}
+
+	@Override
+	public void update() {
+		if (!mUpdatedSinceInitialize || fScheduler.getFrame() % fDivisor == fPhase) {
+			mUpdatedSinceInitialize = true;
+			fControllerState.beginWindow(mEdgeWindow);
+			try {
+				fBehavior.update();
+			} finally {
+				fControllerState.endWindow(mEdgeWindow);
+			}
+		}
+	}
+
+	@Override
+	public void dispose() {
+		fBehavior.dispose();
+	}
+
+	@Override
+	public boolean isDone() {
+		return fBehavior.isDone();
+	}
+
+	@Override
+	public Set<String> getSubsystems() {
+		return fBehavior.getSubsystems();
+	}
+}
@@ -0,0 +1,56 @@
+package org.team1619.utilities.schedule;
+
+import org.team1619.utilities.input.ControllerState;
+
+/**
+ * The phase and edge window of one decimated behavior, kept when the behavior is rebuilt with reloaded configuration
+ *
+ * The phase is reserved on whichever thread builds the behavior and given back when it is rebuilt with a different
+ * divisor. The edge window is registered the first time the behavior is initialized, on the states thread as
+ * ControllerState requires, and every rebuild after that uses the same one.
+ */
+
+public class DecimationSlot {
+
+	private final BehaviorScheduler fScheduler;
+	private final ControllerState fControllerState;
+	private final String fBehaviorName;
+
+	private int mDivisor;
+	private int mPhase;
+	private int mEdgeWindow;
+
+	public DecimationSlot(BehaviorScheduler scheduler, ControllerState controllerState, String behaviorName) {
+		fScheduler = scheduler;
+		fControllerState = controllerState;
+		fBehaviorName = behaviorName;
+		mDivisor = 1;
+		mPhase = 0;
+		mEdgeWindow = -1;
+	}
+
+	/**
+	 * Returns the phase for the divisor, reserving a new one only if the divisor changed, a divisor of 1 gives up the
+	 * phase
+	 */
+	public synchronized int reservePhase(int divisor) {
+		if (divisor != mDivisor) {
+			if (mDivisor > 1) {
+				fScheduler.releasePhase(mDivisor, mPhase);
+			}
+			mPhase = divisor > 1 ? fScheduler.assignPhase(fBehaviorName, divisor) : 0;
+			mDivisor = divisor;
+		}
+		return mPhase;
+	}
+
+	/**
+	 * Call from the states thread
+	 */
+	public int getEdgeWindow() {
+		if (mEdgeWindow < 0) {
+			mEdgeWindow = fControllerState.registerEdgeWindow();
+		}
+		return mEdgeWindow;
+	}
+}
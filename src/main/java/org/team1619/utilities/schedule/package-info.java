@@ -0,0 +1,4 @@
+@NonNullByDefault
+package org.team1619.utilities.schedule;
+
+import org.uacr.NonNullByDefault;
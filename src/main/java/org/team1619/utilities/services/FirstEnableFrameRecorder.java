@@ -0,0 +1,90 @@
+package org.team1619.utilities.services;
+
+import org.team1619.utilities.overload.OverloadController;
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+import org.uacr.utilities.services.Service;
+
+import java.util.Arrays;
+
+/**
+ * Records the core frame times right after the robot is first enabled and logs their percentiles once
+ *
+ * These are the frames that run code the JIT has not compiled yet, so comparing the report from boots with and
+ * without the warm-up shows what it buys. Later enables are not recorded.
+ */
+
+public class FirstEnableFrameRecorder {
+
+	private static final Logger sLogger = LogManager.getLogger(FirstEnableFrameRecorder.class);
+
+	private final OverloadController fOverloadController;
+	private final String fLabel;
+	private final long[] fFrameTimes;
+
+	private volatile boolean mArmed;
+	private boolean mSkippedFrame;
+	private int mCount;
+
+	/**
+	 * @param label describes this boot in the report, for example whether the warm-up ran
+	 */
+	public FirstEnableFrameRecorder(OverloadController overloadController, String label, int frames) {
+		fOverloadController = overloadController;
+		fLabel = label;
+		fFrameTimes = new long[frames];
+		mArmed = false;
+		mSkippedFrame = false;
+		mCount = 0;
+	}
+
+	/**
+	 * Starts recording from the next core frame, call when the robot is enabled
+	 */
+	public void arm() {
+		mArmed = true;
+	}
+
+	/**
+	 * Returns a service that records the last core frame's time, it must run on the core thread
+	 */
+	public Service getService() {
+		return new Service() {
+			@Override
+			public void startUp() {
+			}
+
+			@Override
+			public void runOneIteration() {
+				if (!mArmed || mCount == fFrameTimes.length) {
+					return;
+				}
+				// The last frame may have started before the enable
+				if (!mSkippedFrame) {
+					mSkippedFrame = true;
+					return;
+				}
+				fFrameTimes[mCount++] = fOverloadController.getLastFrameTime();
+				if (mCount == fFrameTimes.length) {
+					report();
+				}
+			}
+
+			@Override
+			public void shutDown() {
+			}
+		};
+	}
+
+	private void report() {
+		long[] sorted = fFrameTimes.clone();
+		Arrays.sort(sorted);
+		sLogger.info("First {} core frames after enable ({}): p50 {} us, p90 {} us, p99 {} us, max {} us, first {} us", sorted.length, fLabel,
+				percentile(sorted, 0.5) / 1000, percentile(sorted, 0.9) / 1000, percentile(sorted, 0.99) / 1000, sorted[sorted.length - 1] / 1000,
+				fFrameTimes[0] / 1000);
+	}
+
+	private static long percentile(long[] sorted, double fraction) {
+		return sorted[Math.max(0, (int) Math.ceil(sorted.length * fraction) - 1)];
+	}
+}
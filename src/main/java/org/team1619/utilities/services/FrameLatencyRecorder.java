@@ -0,0 +1,89 @@
+package org.team1619.utilities.services;
+
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+import org.uacr.utilities.services.Service;
+
+import java.util.Arrays;
+
+/**
+ * Records the time from the start of the input read to the end of the output write for each core frame
+ *
+ * Latencies are collected into a preallocated window and the mean, p99 and max are logged every time it fills.
+ */
+
+public class FrameLatencyRecorder {
+
+	private static final Logger sLogger = LogManager.getLogger(FrameLatencyRecorder.class);
+
+	private final String fName;
+	private final long[] fLatencies;
+	private final long[] fSorted;
+	private int mCount;
+	private long mFrameStart;
+
+	public FrameLatencyRecorder(String name, int window) {
+		fName = name;
+		fLatencies = new long[window];
+		fSorted = new long[window];
+		mCount = 0;
+	}
+
+	/**
+	 * Records one frame, times are from System.nanoTime()
+	 */
+	public synchronized void record(long frameStart, long frameEnd) {
+		fLatencies[mCount++] = frameEnd - frameStart;
+		if (mCount == fLatencies.length) {
+			System.arraycopy(fLatencies, 0, fSorted, 0, mCount);
+			Arrays.sort(fSorted, 0, mCount);
+			long total = 0;
+			for (int i = 0; i < mCount; i++) {
+				total += fSorted[i];
+			}
+			sLogger.info("{} sensor to actuator latency over {} frames: mean {} us, p99 {} us, max {} us", fName, mCount,
+					total / mCount / 1000, fSorted[(int) Math.ceil(mCount * 0.99) - 1] / 1000, fSorted[mCount - 1] / 1000);
+			mCount = 0;
+		}
+	}
+
+	/**
+	 * Returns a service that marks the start of a frame, it must run before the input service
+	 */
+	public Service getBeginService() {
+		return new Service() {
+			@Override
+			public void startUp() {
+			}
+
+			@Override
+			public void runOneIteration() {
+				mFrameStart = System.nanoTime();
+			}
+
+			@Override
+			public void shutDown() {
+			}
+		};
+	}
+
+	/**
+	 * Returns a service that marks the end of a frame, it must run after the output service
+	 */
+	public Service getEndService() {
+		return new Service() {
+			@Override
+			public void startUp() {
+			}
+
+			@Override
+			public void runOneIteration() {
+				record(mFrameStart, System.nanoTime());
+			}
+
+			@Override
+			public void shutDown() {
+			}
+		};
+	}
+}
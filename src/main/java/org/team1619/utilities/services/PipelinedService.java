@@ -0,0 +1,114 @@
+package org.team1619.utilities.services;
+
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+import org.uacr.utilities.services.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the input, states and output stages of the core frame so the output write for one frame overlaps the input
+ * read for the next
+ *
+ * The input and states stages run on the scheduler thread and the output stage has its own thread. Frames are handed
+ * to the output thread through a single slot that holds the frame's start time, so each latency is recorded against
+ * the frame it belongs to. The stages share the framework's InputValues and OutputValues rather than copies, so the
+ * hand-off keeps every value owned by one stage at a time. The input stage only writes input values and the output
+ * stage only reads output values, so they run side by side. The states stage reads inputs and writes outputs, so it
+ * waits until the output thread has finished the previous frame before it starts. The slot is free again whenever
+ * the states stage hands off and no frame is ever dropped.
+ */
+
+public class PipelinedService implements Service {
+
+	private static final Logger sLogger = LogManager.getLogger(PipelinedService.class);
+
+	private static final long NO_FRAME = -1;
+
+	private final FrameLatencyRecorder fLatencyRecorder;
+	private final Service fInputStage;
+	private final Service fStatesStage;
+	private final Service fOutputStage;
+	// Start time of the frame waiting for or running in the output stage, NO_FRAME once it has been written
+	private final AtomicLong fPendingFrame;
+
+	private volatile boolean mRunning;
+	private volatile Thread mSchedulerThread;
+	private Thread mOutputThread;
+
+	/**
+	 * @param latencyRecorder records the time from the start of the input stage to the end of the output stage
+	 */
+	public PipelinedService(FrameLatencyRecorder latencyRecorder, Service inputStage, Service statesStage, Service outputStage) {
+		fLatencyRecorder = latencyRecorder;
+		fInputStage = inputStage;
+		fStatesStage = statesStage;
+		fOutputStage = outputStage;
+		fPendingFrame = new AtomicLong(NO_FRAME);
+		mRunning = false;
+	}
+
+	@Override
+	public void startUp() throws Exception {
+		fInputStage.startUp();
+		fStatesStage.startUp();
+		fOutputStage.startUp();
+
+		mRunning = true;
+		mOutputThread = new Thread(this::runOutputStage, "Core output");
+		mOutputThread.setDaemon(true);
+		mOutputThread.start();
+	}
+
+	@Override
+	public void runOneIteration() throws Exception {
+		mSchedulerThread = Thread.currentThread();
+		long frameStart = System.nanoTime();
+		fInputStage.runOneIteration();
+
+		// The states stage writes the output values the previous frame is still sending
+		while (fPendingFrame.get() != NO_FRAME && mRunning) {
+			LockSupport.park(this);
+		}
+		fStatesStage.runOneIteration();
+
+		fPendingFrame.set(frameStart);
+		LockSupport.unpark(mOutputThread);
+	}
+
+	@Override
+	public void shutDown() throws Exception {
+		mRunning = false;
+		LockSupport.unpark(mOutputThread);
+		mOutputThread.join(1000);
+
+		fInputStage.shutDown();
+		fStatesStage.shutDown();
+		fOutputStage.shutDown();
+	}
+
+	private void runOutputStage() {
+		// The last frame handed off is still sent after shutdown starts
+		while (mRunning || fPendingFrame.get() != NO_FRAME) {
+			long frameStart = fPendingFrame.get();
+			if (frameStart == NO_FRAME) {
+				LockSupport.park(this);
+				continue;
+			}
+
+			try {
+				fOutputStage.runOneIteration();
+			} catch (Exception e) {
+				sLogger.error("Output stage failed: {}", e.getMessage());
+			}
+			fLatencyRecorder.record(frameStart, System.nanoTime());
+
+			fPendingFrame.set(NO_FRAME);
+			Thread schedulerThread = mSchedulerThread;
+			if (schedulerThread != null) {
+				LockSupport.unpark(schedulerThread);
+			}
+		}
+	}
+}
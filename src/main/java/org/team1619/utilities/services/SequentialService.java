@@ -0,0 +1,37 @@
+package org.team1619.utilities.services;
+
+import org.uacr.utilities.services.Service;
+
+/**
+ * Runs several services one after another as a single service
+ */
+
+public class SequentialService implements Service {
+
+	private final Service[] fServices;
+
+	public SequentialService(Service... services) {
+		fServices = services;
+	}
+
+	@Override
+	public void startUp() throws Exception {
+		for (Service service : fServices) {
+			service.startUp();
+		}
+	}
+
+	@Override
+	public void runOneIteration() throws Exception {
+		for (Service service : fServices) {
+			service.runOneIteration();
+		}
+	}
+
+	@Override
+	public void shutDown() throws Exception {
+		for (Service service : fServices) {
+			service.shutDown();
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package org.team1619.utilities.services;
+
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+import org.uacr.utilities.services.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sets the real-time priority and CPU affinity of the thread running a ScheduledMultiService and reports its jitter
+ *
+ * Must be the first service in the ScheduledMultiService. On its first run it finds the Linux thread id of the
+ * current thread and hands it to a background thread that applies the settings with chrt and taskset, so the
+ * service thread never waits on a process. If that fails, usually because the user is not allowed real-time
+ * scheduling, the thread keeps its default scheduling and the failure is logged. Java thread priorities are not
+ * used as a fallback, the JVM ignores them on Linux.
+ */
+
+public class ThreadTuningService implements Service {
+
+	private static final Logger sLogger = LogManager.getLogger(ThreadTuningService.class);
+
+	private static final long PROCESS_TIMEOUT_MS = 2000;
+	// Runs the tools and drains their output, a cached pool so a drain never waits behind the process it drains
+	private static final ExecutorService sExecutor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "thread-tuning");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final String fName;
+	private final int fPriority;
+	private final String fCpus;
+	private final long fPeriodNanos;
+	private final long[] fJitter;
+	private final long[] fSorted;
+
+	private boolean mConfigured;
+	private long mLastRunTime;
+	private int mCount;
+
+	/**
+	 * @param name used in log messages
+	 * @param priority SCHED_FIFO priority from 1 to 99, 0 leaves the scheduling policy alone
+	 * @param cpus a taskset cpu list such as "1" or "0-1", empty leaves the affinity alone
+	 * @param periodMs the period of the ScheduledMultiService, used to measure jitter
+	 * @param window how many frames to collect before logging jitter statistics
+	 */
+	public ThreadTuningService(String name, int priority, String cpus, long periodMs, int window) {
+		fName = name;
+		fPriority = priority;
+		fCpus = cpus.trim();
+		fPeriodNanos = TimeUnit.MILLISECONDS.toNanos(periodMs);
+		fJitter = new long[window];
+		fSorted = new long[window];
+		mConfigured = false;
+		mLastRunTime = 0;
+		mCount = 0;
+	}
+
+	@Override
+	public void startUp() {
+	}
+
+	@Override
+	public void runOneIteration() {
+		if (!mConfigured) {
+			mConfigured = true;
+			if (fPriority > 0 || !fCpus.isEmpty()) {
+				String threadId = getLinuxThreadId();
+				sExecutor.execute(() -> configureThread(threadId));
+			}
+		}
+
+		long now = System.nanoTime();
+		if (mLastRunTime != 0) {
+			recordJitter(Math.abs((now - mLastRunTime) - fPeriodNanos));
+		}
+		mLastRunTime = now;
+	}
+
+	@Override
+	public void shutDown() {
+	}
+
+	private void configureThread(String threadId) {
+		if (threadId.isEmpty()) {
+			sLogger.warn("{} thread: not running on Linux, priority and affinity are not set", fName);
+			return;
+		}
+
+		boolean success = true;
+		if (fPriority > 0) {
+			success &= run("chrt", "-f", "-p", Integer.toString(fPriority), threadId);
+		}
+		if (!fCpus.isEmpty()) {
+			success &= run("taskset", "-p", "-c", fCpus, threadId);
+		}
+
+		if (success) {
+			sLogger.info("{} thread {}: priority {} cpus {}", fName, threadId, fPriority, fCpus.isEmpty() ? "any" : fCpus);
+		}
+	}
+
+	// /proc/thread-self links to /proc/<pid>/task/<tid> for the calling thread
+	private static String getLinuxThreadId() {
+		try {
+			Path link = Files.readSymbolicLink(Paths.get("/proc/thread-self"));
+			return link.getFileName().toString();
+		} catch (IOException | UnsupportedOperationException e) {
+			return "";
+		}
+	}
+
+	private boolean run(String... command) {
+		try {
+			Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+			Future<String> output = sExecutor.submit(() -> new String(process.getInputStream().readAllBytes()).trim());
+			if (!process.waitFor(PROCESS_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+				process.destroyForcibly();
+				sLogger.warn("{} thread: '{}' did not finish in {} ms", fName, String.join(" ", command), PROCESS_TIMEOUT_MS);
+				return false;
+			}
+			if (process.exitValue() != 0) {
+				sLogger.warn("{} thread: '{}' failed, {}", fName, String.join(" ", command), output.get(PROCESS_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+				return false;
+			}
+			return true;
+		} catch (IOException | ExecutionException | TimeoutException e) {
+			sLogger.warn("{} thread: could not run {}, {}", fName, command[0], e.getMessage());
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private void recordJitter(long jitter) {
+		fJitter[mCount++] = jitter;
+		if (mCount == fJitter.length) {
+			System.arraycopy(fJitter, 0, fSorted, 0, mCount);
+			Arrays.sort(fSorted, 0, mCount);
+			long total = 0;
+			for (int i = 0; i < mCount; i++) {
+				total += fSorted[i];
+			}
+			sLogger.info("{} thread jitter over {} frames: mean {} us, p99 {} us, max {} us", fName, mCount,
+					total / mCount / 1000, fSorted[(int) Math.ceil(mCount * 0.99) - 1] / 1000, fSorted[mCount - 1] / 1000);
+			mCount = 0;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package org.team1619.utilities.swerve;
+
+import org.uacr.models.exceptions.ConfigurationException;
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Persists verified swerve module zero offsets so a roboRIO restart can skip re-zeroing
+ *
+ * The offset for a module is the difference between its absolute analog angle and its motor controller position,
+ * both in degrees, at the time the zero was verified. The motor controllers keep their position through a roboRIO
+ * restart, so if that difference still matches the zero is still good.
+ */
+
+public class ModuleZeroStore {
+
+	private static final Logger sLogger = LogManager.getLogger(ModuleZeroStore.class);
+
+	private final Path fPath;
+	private final Properties fOffsets;
+
+	/**
+	 * @throws ConfigurationException if the path is not absolute, the working directory differs between deploys
+	 */
+	public ModuleZeroStore(String path) {
+		fPath = Paths.get(path);
+		if (!fPath.isAbsolute()) {
+			throw new ConfigurationException("Module offsets file " + path + " must be an absolute path");
+		}
+		fOffsets = new Properties();
+	}
+
+	/**
+	 * Reads the offsets from the file, returns false if there is no usable file
+	 */
+	public synchronized boolean load() {
+		fOffsets.clear();
+		if (!Files.exists(fPath)) {
+			return false;
+		}
+
+		try (InputStream in = Files.newInputStream(fPath)) {
+			fOffsets.load(in);
+			return true;
+		} catch (IOException | IllegalArgumentException e) {
+			sLogger.error("Could not read module offsets from {}: {}", fPath, e.getMessage());
+			fOffsets.clear();
+			return false;
+		}
+	}
+
+	/**
+	 * Returns true if the stored offset for the module is within tolerance (degrees) of the current offset
+	 *
+	 * @param analogAngle the absolute module angle in degrees
+	 * @param position the motor controller position converted to degrees of module rotation
+	 */
+	public synchronized boolean isConsistent(String module, double analogAngle, double position, double tolerance) {
+		String stored = fOffsets.getProperty(module);
+		if (stored == null) {
+			return false;
+		}
+
+		try {
+			double difference = SwerveModuleOptimizer.wrapDegrees(offset(analogAngle, position) - Double.parseDouble(stored));
+			return Math.abs(difference) <= tolerance;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the offsets for all verified modules, replacing the file atomically
+	 *
+	 * @param readings module name to {analog angle, position}, both in degrees
+	 */
+	public synchronized void save(Map<String, double[]> readings) {
+		fOffsets.clear();
+		for (Map.Entry<String, double[]> reading : readings.entrySet()) {
+			fOffsets.setProperty(reading.getKey(), Double.toString(offset(reading.getValue()[0], reading.getValue()[1])));
+		}
+
+		try {
+			Path parent = fPath.toAbsolutePath().getParent();
+			if (parent != null) {
+				Files.createDirectories(parent);
+			}
+			Path temp = Paths.get(fPath + ".tmp");
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				fOffsets.store(out, "Swerve module zero offsets (analog angle - position)");
+			}
+			Files.move(temp, fPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			sLogger.error("Could not write module offsets to {}: {}", fPath, e.getMessage());
+		}
+	}
+
+	private static double offset(double analogAngle, double position) {
+		return SwerveModuleOptimizer.wrapDegrees(analogAngle - position);
+	}
+}
@@ -0,0 +1,69 @@
+package org.team1619.utilities.swerve;
+
+/**
+ * Swerve drive math shared by Behavior_Drivetrain_Swerve and SwerveKinematicsBatch
+ *
+ * Commands are forward, strafe and rotate after joystick shaping, headings and angles are in degrees. Module
+ * results are written into [module][index] arrays so the behavior and the batch use the same code, the behavior
+ * with one index and the batch with one per robot state.
+ */
+
+public final class SwerveKinematics {
+
+	public static final int MODULES = 4;
+	public static final int FRONT_RIGHT = 0;
+	public static final int FRONT_LEFT = 1;
+	public static final int BACK_LEFT = 2;
+	public static final int BACK_RIGHT = 3;
+	public static final String[] MODULE_NAMES = {"front_right", "front_left", "back_left", "back_right"};
+
+	private SwerveKinematics() {
+	}
+
+	/**
+	 * The forward part of a field centric command for the given robot heading
+	 */
+	public static double fieldCentricForward(double forward, double strafe, double heading) {
+		double radHeading = Math.toRadians(heading);
+		return forward * Math.cos(radHeading) + strafe * Math.sin(radHeading);
+	}
+
+	/**
+	 * The strafe part of a field centric command for the given robot heading
+	 */
+	public static double fieldCentricStrafe(double forward, double strafe, double heading) {
+		double radHeading = Math.toRadians(heading);
+		return - forward * Math.sin(radHeading) + strafe * Math.cos(radHeading);
+	}
+
+	/**
+	 * Calculates the wheel speed and angle of every module, speeds are normalized so they never exceed 1.0
+	 *
+	 * @param lengthRatio robot length divided by the robot diagonal
+	 * @param widthRatio robot width divided by the robot diagonal
+	 * @param speeds output wheel speed, [module][index]
+	 * @param angles output wheel angle in degrees, [module][index]
+	 */
+	public static void toModules(double forward, double strafe, double rotate, double lengthRatio, double widthRatio, double[][] speeds, double[][] angles, int index) {
+		double a = strafe - rotate * lengthRatio;
+		double b = strafe + rotate * lengthRatio;
+		double c = forward - rotate * widthRatio;
+		double d = forward + rotate * widthRatio;
+
+		double frontRight = Math.sqrt((b * b) + (d * d));
+		double frontLeft = Math.sqrt((b * b) + (c * c));
+		double backLeft = Math.sqrt((a * a) + (c * c));
+		double backRight = Math.sqrt((a * a) + (d * d));
+
+		double maxSpeed = Math.max(1.0, Math.max(Math.max(frontRight, frontLeft), Math.max(backLeft, backRight)));
+		speeds[FRONT_RIGHT][index] = frontRight / maxSpeed;
+		speeds[FRONT_LEFT][index] = frontLeft / maxSpeed;
+		speeds[BACK_LEFT][index] = backLeft / maxSpeed;
+		speeds[BACK_RIGHT][index] = backRight / maxSpeed;
+
+		angles[FRONT_RIGHT][index] = Math.toDegrees(Math.atan2(b, d));
+		angles[FRONT_LEFT][index] = Math.toDegrees(Math.atan2(b, c));
+		angles[BACK_LEFT][index] = Math.toDegrees(Math.atan2(a, c));
+		angles[BACK_RIGHT][index] = Math.toDegrees(Math.atan2(a, d));
+	}
+}
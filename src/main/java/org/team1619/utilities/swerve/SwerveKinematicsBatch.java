@@ -0,0 +1,92 @@
+package org.team1619.utilities.swerve;
+
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates the Behavior_Drivetrain_Swerve drive math for many robot states at once
+ *
+ * Inputs and outputs are struct-of-arrays: one double[] per field, indexed by robot state. The math itself is the
+ * behavior's, SwerveKinematics for the module vectors and SwerveModuleOptimizer.steer() for the minimum rotation
+ * step, run without allocation over the arrays. Commands are forward, strafe and rotate after joystick shaping, shape
+ * raw sticks with the same input-shaping.yaml chain the behavior uses. Large batches are split into chunks and run on
+ * all cores.
+ *
+ * Module order in the angle and output arrays is front right, front left, back left, back right.
+ */
+
+public class SwerveKinematicsBatch {
+
+	public static final int MODULES = SwerveKinematics.MODULES;
+
+	private static final int CHUNK_SIZE = 16384;
+
+	private final double fLengthRatio;
+	private final double fWidthRatio;
+	private final double fSpeedScaleExponent;
+
+	public SwerveKinematicsBatch(double robotLength, double robotWidth, double speedScaleExponent) {
+		double diameter = Math.sqrt((robotLength * robotLength) + (robotWidth * robotWidth));
+		fLengthRatio = robotLength / diameter;
+		fWidthRatio = robotWidth / diameter;
+		fSpeedScaleExponent = speedScaleExponent;
+	}
+
+	/**
+	 * Runs every state, in parallel when there are enough of them
+	 *
+	 * @param forward shaped forward command per state
+	 * @param strafe shaped strafe command per state
+	 * @param rotate shaped rotate command per state
+	 * @param heading robot heading in degrees per state, navx angle - 90 as in the behavior
+	 * @param fieldCentric whether the commands are field centric
+	 * @param moduleAngles current continuous steering encoder angle in degrees of each module, [module][state]
+	 * @param speeds output wheel speed, [module][state]
+	 * @param angles output wheel angle setpoint in degrees, [module][state]
+	 */
+	public void compute(double[] forward, double[] strafe, double[] rotate, double[] heading, boolean fieldCentric,
+	                    double[][] moduleAngles, double[][] speeds, double[][] angles) {
+		int count = forward.length;
+		int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		if (chunks <= 1) {
+			compute(forward, strafe, rotate, heading, fieldCentric, moduleAngles, speeds, angles, 0, count);
+			return;
+		}
+
+		IntStream.range(0, chunks).parallel().forEach(chunk -> {
+			int from = chunk * CHUNK_SIZE;
+			compute(forward, strafe, rotate, heading, fieldCentric, moduleAngles, speeds, angles, from, Math.min(count, from + CHUNK_SIZE));
+		});
+	}
+
+	/**
+	 * Runs states [from, to) on the calling thread
+	 */
+	public void compute(double[] forward, double[] strafe, double[] rotate, double[] heading, boolean fieldCentric,
+	                    double[][] moduleAngles, double[][] speeds, double[][] angles, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (fieldCentric) {
+				double fieldForward = SwerveKinematics.fieldCentricForward(forward[i], strafe[i], heading[i]);
+				double fieldStrafe = SwerveKinematics.fieldCentricStrafe(forward[i], strafe[i], heading[i]);
+				SwerveKinematics.toModules(fieldForward, fieldStrafe, rotate[i], fLengthRatio, fWidthRatio, speeds, angles, i);
+			} else {
+				SwerveKinematics.toModules(forward[i], strafe[i], rotate[i], fLengthRatio, fWidthRatio, speeds, angles, i);
+			}
+		}
+
+		// Minimum rotation and speed scaling, the same as SwerveModuleOptimizer without the feedforward
+		for (int m = 0; m < MODULES; m++) {
+			double[] current = moduleAngles[m];
+			double[] speed = speeds[m];
+			double[] angle = angles[m];
+			for (int i = from; i < to; i++) {
+				if (Math.abs(speed[i]) < 1e-6) {
+					// A stopped module holds its current angle
+					speed[i] = 0;
+					angle[i] = current[i];
+				} else {
+					SwerveModuleOptimizer.steer(angle[i], speed[i], current[i], fSpeedScaleExponent, speed, angle, i);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package org.team1619.utilities.swerve;
+
+/**
+ * Picks the minimum rotation setpoint for a single swerve module
+ *
+ * The requested angle is wrapped to the equivalent angle nearest the current module angle, reversing the wheel
+ * when that is shorter than turning more than 90 degrees. A steering velocity feedforward leads the setpoint by
+ * how fast the requested direction is changing, so the module keeps up with a sweeping joystick.
+ */
+
+public class SwerveModuleOptimizer {
+
+	private final double fSpeedScaleExponent;
+	private final double fFeedforwardLeadTime;
+	private final double fFeedforwardMax;
+	private final double[] fSteeredSpeed;
+	private final double[] fSteeredAngle;
+
+	private double mAngle;
+	private double mSpeed;
+	private double mLastAngle;
+	private double mLastRequestedAngle;
+	private boolean mHasLastRequest;
+
+	/**
+	 * @param speedScaleExponent exponent applied to cos(angle error) when scaling the wheel speed
+	 * @param feedforwardLeadTime seconds of steering velocity to lead the setpoint by, 0 to disable
+	 * @param feedforwardMax the largest lead in degrees the feedforward may add
+	 */
+	public SwerveModuleOptimizer(double speedScaleExponent, double feedforwardLeadTime, double feedforwardMax) {
+		fSpeedScaleExponent = speedScaleExponent;
+		fFeedforwardLeadTime = feedforwardLeadTime;
+		fFeedforwardMax = feedforwardMax;
+		fSteeredSpeed = new double[1];
+		fSteeredAngle = new double[1];
+
+		reset();
+	}
+
+	public void reset() {
+		mAngle = 0;
+		mSpeed = 0;
+		mLastAngle = Double.NaN;
+		mLastRequestedAngle = 0;
+		mHasLastRequest = false;
+	}
+
+	/**
+	 * Calculates the setpoint for the module, read the result with getAngle() and getSpeed()
+	 *
+	 * @param requestedAngle the direction the wheel should drive in degrees, any range
+	 * @param requestedSpeed the wheel speed for the requested direction
+	 * @param currentAngle the current module angle in degrees, continuous (not wrapped)
+	 * @param deltaTime seconds since the previous call, 0 if unknown
+	 */
+	public void optimize(double requestedAngle, double requestedSpeed, double currentAngle, double deltaTime) {
+		// With no speed requested hold the last setpoint instead of snapping the wheel back to zero
+		if (Math.abs(requestedSpeed) < 1e-6) {
+			mAngle = Double.isNaN(mLastAngle) ? currentAngle : mLastAngle;
+			mSpeed = 0;
+			mHasLastRequest = false;
+			mLastAngle = mAngle;
+			return;
+		}
+
+		steer(requestedAngle, requestedSpeed, currentAngle, fSpeedScaleExponent, fSteeredSpeed, fSteeredAngle, 0);
+
+		// Lead the setpoint by how fast the requested direction is moving, a direction and its reverse are equivalent
+		double lead = 0;
+		if (mHasLastRequest && deltaTime > 0 && fFeedforwardLeadTime > 0) {
+			double rate = wrapHalfDegrees(requestedAngle - mLastRequestedAngle) / deltaTime;
+			lead = Math.max(-fFeedforwardMax, Math.min(fFeedforwardMax, rate * fFeedforwardLeadTime));
+		}
+		mLastRequestedAngle = requestedAngle;
+		mHasLastRequest = true;
+
+		mSpeed = fSteeredSpeed[0];
+		mAngle = fSteeredAngle[0] + lead;
+		mLastAngle = mAngle;
+	}
+
+	/**
+	 * The part of optimize() that does not depend on earlier calls, also used by SwerveKinematicsBatch
+	 *
+	 * Turns the shortest way to the requested direction, reversing the wheel if it is more than 90 degrees away, and
+	 * slows the wheel by cos(angle error) to the given power while it is pointing away from the requested direction.
+	 * Writes the speed into speeds[index] and the angle setpoint in degrees into angles[index].
+	 */
+	public static void steer(double requestedAngle, double requestedSpeed, double currentAngle, double speedScaleExponent, double[] speeds, double[] angles, int index) {
+		double error = wrapDegrees(requestedAngle - currentAngle);
+		double speed = requestedSpeed;
+		if (error > 90) {
+			error -= 180;
+			speed = -speed;
+		} else if (error < -90) {
+			error += 180;
+			speed = -speed;
+		}
+
+		// The error is never more than 90 degrees so the scale is never negative
+		double scale = Math.cos(Math.toRadians(error));
+		speeds[index] = speed * (speedScaleExponent == 3 ? scale * scale * scale : Math.pow(scale, speedScaleExponent));
+		angles[index] = currentAngle + error;
+	}
+
+	/**
+	 * The equivalent of a fixed target angle nearest the current continuous module angle, for setpoints that skip
+	 * the optimizer
+	 */
+	public static double nearest(double targetAngle, double currentAngle) {
+		return currentAngle + wrapDegrees(targetAngle - currentAngle);
+	}
+
+	public double getAngle() {
+		return mAngle;
+	}
+
+	public double getSpeed() {
+		return mSpeed;
+	}
+
+	/**
+	 * Wraps an angle in degrees into [-180, 180)
+	 */
+	public static double wrapDegrees(double angle) {
+		double wrapped = (angle + 180) % 360;
+		if (wrapped < 0) {
+			wrapped += 360;
+		}
+		return wrapped - 180;
+	}
+
+	/**
+	 * Wraps an angle in degrees into [-90, 90), treating a direction and its reverse as the same
+	 */
+	public static double wrapHalfDegrees(double angle) {
+		double wrapped = (angle + 90) % 180;
+		if (wrapped < 0) {
+			wrapped += 180;
+		}
+		return wrapped - 90;
+	}
+}
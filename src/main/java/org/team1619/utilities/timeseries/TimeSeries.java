@@ -0,0 +1,232 @@
+package org.team1619.utilities.timeseries;
+
+/**
+ * Fixed memory history of one numeric signal with tiered retention
+ *
+ * The newest samples are kept as recorded in a raw ring. Every sample is also folded into fixed width buckets that
+ * keep the minimum and maximum and when they happened, so spikes survive long after the raw samples are gone.
+ * Queries merge the buckets older than the raw ring with the raw samples and reduce the result to the requested
+ * number of points with largest triangle three buckets (LTTB), so a graph of any length costs the same bandwidth.
+ *
+ * record() is called from the core thread and does not allocate. Queries copy the range under the same lock and do
+ * the downsampling after releasing it. Times are in seconds.
+ */
+
+public class TimeSeries {
+
+	private final String fName;
+	private final double fBucketTime;
+
+	private final double[] fRawTimes;
+	private final double[] fRawValues;
+	private int mRawStart;
+	private int mRawSize;
+
+	private final double[] fMinTimes;
+	private final double[] fMins;
+	private final double[] fMaxTimes;
+	private final double[] fMaxes;
+	private int mBucketStart;
+	private int mBucketSize;
+
+	private double mOpenBucketEnd;
+	private double mOpenMinTime;
+	private double mOpenMin;
+	private double mOpenMaxTime;
+	private double mOpenMax;
+	private boolean mOpenBucketEmpty;
+
+	public TimeSeries(String name, int rawCapacity, double bucketTime, int bucketCapacity) {
+		fName = name;
+		fBucketTime = bucketTime;
+		fRawTimes = new double[rawCapacity];
+		fRawValues = new double[rawCapacity];
+		fMinTimes = new double[bucketCapacity];
+		fMins = new double[bucketCapacity];
+		fMaxTimes = new double[bucketCapacity];
+		fMaxes = new double[bucketCapacity];
+		clear();
+	}
+
+	public String getName() {
+		return fName;
+	}
+
+	public synchronized void clear() {
+		mRawStart = 0;
+		mRawSize = 0;
+		mBucketStart = 0;
+		mBucketSize = 0;
+		mOpenBucketEnd = Double.NEGATIVE_INFINITY;
+		mOpenBucketEmpty = true;
+	}
+
+	/**
+	 * Adds a sample, samples that are NaN or not newer than the last one are ignored
+	 */
+	public synchronized void record(double time, double value) {
+		if (Double.isNaN(value) || (mRawSize > 0 && time <= fRawTimes[rawIndex(mRawSize - 1)])) {
+			return;
+		}
+
+		int i;
+		if (mRawSize < fRawTimes.length) {
+			i = rawIndex(mRawSize);
+			mRawSize++;
+		} else {
+			i = mRawStart;
+			mRawStart = mRawStart + 1 == fRawTimes.length ? 0 : mRawStart + 1;
+		}
+		fRawTimes[i] = time;
+		fRawValues[i] = value;
+
+		if (time >= mOpenBucketEnd) {
+			closeBucket();
+			mOpenBucketEnd = (Math.floor(time / fBucketTime) + 1) * fBucketTime;
+		}
+		if (mOpenBucketEmpty || value < mOpenMin) {
+			mOpenMin = value;
+			mOpenMinTime = time;
+		}
+		if (mOpenBucketEmpty || value > mOpenMax) {
+			mOpenMax = value;
+			mOpenMaxTime = time;
+		}
+		mOpenBucketEmpty = false;
+	}
+
+	/**
+	 * Returns the samples between from and to, downsampled to at most maxPoints points
+	 *
+	 * @return {times, values}
+	 */
+	public double[][] query(double from, double to, int maxPoints) {
+		double[] times;
+		double[] values;
+		int size = 0;
+
+		synchronized (this) {
+			double rawStartTime = mRawSize > 0 ? fRawTimes[mRawStart] : Double.POSITIVE_INFINITY;
+			times = new double[(mBucketSize + 1) * 2 + mRawSize];
+			values = new double[times.length];
+
+			// Buckets only fill in what has already left the raw ring, the open bucket can too when the ring is
+			// shorter than a bucket
+			for (int n = 0; n < mBucketSize; n++) {
+				int i = bucketIndex(n);
+				size = addBucket(times, values, size, fMinTimes[i], fMins[i], fMaxTimes[i], fMaxes[i], from, to, rawStartTime);
+			}
+			if (!mOpenBucketEmpty) {
+				size = addBucket(times, values, size, mOpenMinTime, mOpenMin, mOpenMaxTime, mOpenMax, from, to, rawStartTime);
+			}
+			for (int n = 0; n < mRawSize; n++) {
+				int i = rawIndex(n);
+				size = add(times, values, size, fRawTimes[i], fRawValues[i], from, to, Double.POSITIVE_INFINITY);
+			}
+		}
+
+		return downsample(times, values, size, maxPoints);
+	}
+
+	/**
+	 * Largest triangle three buckets: keeps the first and last points and from each of maxPoints - 2 equal buckets in
+	 * between the point that makes the largest triangle with the point kept before it and the average of the next bucket
+	 */
+	public static double[][] downsample(double[] times, double[] values, int size, int maxPoints) {
+		if (size <= maxPoints || maxPoints < 3) {
+			double[][] result = new double[2][Math.min(size, Math.max(maxPoints, 0))];
+			System.arraycopy(times, 0, result[0], 0, result[0].length);
+			System.arraycopy(values, 0, result[1], 0, result[1].length);
+			return result;
+		}
+
+		double[] sampledTimes = new double[maxPoints];
+		double[] sampledValues = new double[maxPoints];
+		double bucketSize = (double) (size - 2) / (maxPoints - 2);
+		int selected = 0;
+		sampledTimes[0] = times[0];
+		sampledValues[0] = values[0];
+
+		for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+			int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+			int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+			double averageTime = 0;
+			double averageValue = 0;
+			for (int i = nextStart; i < nextEnd; i++) {
+				averageTime += times[i];
+				averageValue += values[i];
+			}
+			averageTime /= nextEnd - nextStart;
+			averageValue /= nextEnd - nextStart;
+
+			int start = (int) (bucket * bucketSize) + 1;
+			int end = nextStart;
+			double maxArea = -1;
+			int next = start;
+			for (int i = start; i < end; i++) {
+				double area = Math.abs((times[selected] - averageTime) * (values[i] - values[selected])
+						- (times[selected] - times[i]) * (averageValue - values[selected]));
+				if (area > maxArea) {
+					maxArea = area;
+					next = i;
+				}
+			}
+			sampledTimes[bucket + 1] = times[next];
+			sampledValues[bucket + 1] = values[next];
+			selected = next;
+		}
+
+		sampledTimes[maxPoints - 1] = times[size - 1];
+		sampledValues[maxPoints - 1] = values[size - 1];
+		return new double[][]{sampledTimes, sampledValues};
+	}
+
+	// Adds a bucket's minimum and maximum in time order, each if it is in [from, to] and before the given end
+	private static int addBucket(double[] times, double[] values, int size, double minTime, double min, double maxTime, double max, double from, double to, double before) {
+		boolean minFirst = minTime <= maxTime;
+		size = add(times, values, size, minFirst ? minTime : maxTime, minFirst ? min : max, from, to, before);
+		if (minTime != maxTime) {
+			size = add(times, values, size, minFirst ? maxTime : minTime, minFirst ? max : min, from, to, before);
+		}
+		return size;
+	}
+
+	// Adds the point if it is in [from, to] and before the given end
+	private static int add(double[] times, double[] values, int size, double time, double value, double from, double to, double before) {
+		if (time < from || time > to || time >= before) {
+			return size;
+		}
+		times[size] = time;
+		values[size] = value;
+		return size + 1;
+	}
+
+	private void closeBucket() {
+		if (mOpenBucketEmpty) {
+			return;
+		}
+		int i;
+		if (mBucketSize < fMins.length) {
+			i = bucketIndex(mBucketSize);
+			mBucketSize++;
+		} else {
+			i = mBucketStart;
+			mBucketStart = mBucketStart + 1 == fMins.length ? 0 : mBucketStart + 1;
+		}
+		fMinTimes[i] = mOpenMinTime;
+		fMins[i] = mOpenMin;
+		fMaxTimes[i] = mOpenMaxTime;
+		fMaxes[i] = mOpenMax;
+		mOpenBucketEmpty = true;
+	}
+
+	private int rawIndex(int position) {
+		int i = mRawStart + position;
+		return i >= fRawTimes.length ? i - fRawTimes.length : i;
+	}
+
+	private int bucketIndex(int position) {
+		int i = mBucketStart + position;
+		return i >= fMins.length ? i - fMins.length : i;
+	}
+}
@@ -0,0 +1,172 @@
+package org.team1619.utilities.timeseries;
+
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minimal HTTP server for time series queries, it runs on its own daemon thread and answers one request per connection
+ *
+ *   GET /timeseries                                      {"time": now, "signals": [names]}
+ *   GET /timeseries/name?from=-30&to=0&points=500         {"signal": name, "times": [...], "values": [...]}
+ *
+ * from and to are in seconds, negative values are relative to now. They default to the last 30 seconds, and points
+ * defaults to and is capped at max_points, so every graph costs the same bandwidth however long it is.
+ */
+
+public class TimeSeriesServer {
+
+	private static final Logger sLogger = LogManager.getLogger(TimeSeriesServer.class);
+
+	private static final String PATH = "/timeseries";
+
+	private final TimeSeriesService fService;
+	private final ServerSocket fServerSocket;
+	private final Thread fThread;
+
+	public TimeSeriesServer(TimeSeriesService service, int port) throws IOException {
+		fService = service;
+		fServerSocket = new ServerSocket(port);
+		fThread = new Thread(this::serve, "Time series server");
+		fThread.setDaemon(true);
+	}
+
+	public void start() {
+		fThread.start();
+	}
+
+	public void stop() {
+		try {
+			fServerSocket.close();
+		} catch (IOException e) {
+			sLogger.error("Could not close the time series server: {}", e.getMessage());
+		}
+	}
+
+	private void serve() {
+		while (!fServerSocket.isClosed()) {
+			try (Socket socket = fServerSocket.accept()) {
+				socket.setSoTimeout(1000);
+				handle(socket);
+			} catch (SocketException e) {
+				// Closed by stop()
+			} catch (IOException e) {
+				sLogger.debug("Time series request failed: {}", e.getMessage());
+			}
+		}
+	}
+
+	private void handle(Socket socket) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+		String requestLine = reader.readLine();
+		String header = requestLine;
+		while (header != null && !header.isEmpty()) {
+			header = reader.readLine();
+		}
+
+		String[] request = requestLine != null ? requestLine.split(" ") : new String[0];
+		if (request.length < 2 || !request[0].equals("GET")) {
+			respond(socket, 405, "{\"error\":\"only GET is supported\"}");
+			return;
+		}
+
+		String target = request[1];
+		int queryStart = target.indexOf('?');
+		String path = URLDecoder.decode(queryStart < 0 ? target : target.substring(0, queryStart), StandardCharsets.UTF_8);
+		Map<String, String> parameters = parseQuery(queryStart < 0 ? "" : target.substring(queryStart + 1));
+
+		if (path.equals(PATH) || path.equals(PATH + "/")) {
+			StringBuilder body = new StringBuilder("{\"time\":").append(fService.getTime()).append(",\"signals\":[");
+			boolean first = true;
+			for (String name : fService.getSeries().keySet()) {
+				body.append(first ? "\"" : ",\"").append(escape(name)).append('"');
+				first = false;
+			}
+			respond(socket, 200, body.append("]}").toString());
+			return;
+		}
+
+		TimeSeries series = path.startsWith(PATH + "/") ? fService.getSeries().get(path.substring(PATH.length() + 1)) : null;
+		if (series == null) {
+			respond(socket, 404, "{\"error\":\"no such signal\"}");
+			return;
+		}
+
+		double now = fService.getTime();
+		double from;
+		double to;
+		int points;
+		try {
+			from = parseTime(parameters.getOrDefault("from", "-30"), now);
+			to = parseTime(parameters.getOrDefault("to", "0"), now);
+			points = Math.min(Integer.parseInt(parameters.getOrDefault("points", String.valueOf(fService.getMaxPoints()))), fService.getMaxPoints());
+		} catch (NumberFormatException e) {
+			respond(socket, 400, "{\"error\":\"from, to and points must be numbers\"}");
+			return;
+		}
+
+		double[][] samples = series.query(from, to, points);
+		StringBuilder body = new StringBuilder("{\"signal\":\"").append(escape(series.getName())).append("\",\"time\":").append(now).append(",\"times\":[");
+		append(body, samples[0]);
+		body.append("],\"values\":[");
+		append(body, samples[1]);
+		respond(socket, 200, body.append("]}").toString());
+	}
+
+	// Zero and negative times are relative to now
+	private static double parseTime(String value, double now) {
+		double time = Double.parseDouble(value);
+		return time <= 0 ? now + time : time;
+	}
+
+	private static Map<String, String> parseQuery(String query) {
+		Map<String, String> parameters = new HashMap<>();
+		for (String parameter : query.split("&")) {
+			int equals = parameter.indexOf('=');
+			if (equals > 0) {
+				parameters.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+						URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return parameters;
+	}
+
+	private static void append(StringBuilder body, double[] values) {
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				body.append(',');
+			}
+			// Six decimals keeps the payload small, times stay to the microsecond
+			body.append(Math.round(values[i] * 1e6) / 1e6);
+		}
+	}
+
+	private static void respond(Socket socket, int status, String body) throws IOException {
+		byte[] content = body.getBytes(StandardCharsets.UTF_8);
+		String headers = "HTTP/1.1 " + status + (status == 200 ? " OK" : " Error") + "\r\n" +
+				"Content-Type: application/json\r\n" +
+				// The dashboard is served from a different port
+				"Access-Control-Allow-Origin: *\r\n" +
+				"Content-Length: " + content.length + "\r\n" +
+				"Connection: close\r\n\r\n";
+		OutputStream output = socket.getOutputStream();
+		output.write(headers.getBytes(StandardCharsets.US_ASCII));
+		output.write(content);
+		output.flush();
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+}
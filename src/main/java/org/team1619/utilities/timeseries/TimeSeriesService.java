@@ -0,0 +1,129 @@
+package org.team1619.utilities.timeseries;
+
+import org.team1619.utilities.overload.OverloadController;
+import org.uacr.shared.abstractions.InputValues;
+import org.uacr.shared.abstractions.RobotConfiguration;
+import org.uacr.utilities.injection.Inject;
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+import org.uacr.utilities.services.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the signals listed in global_timeseries every core frame and serves them to the dashboard
+ *
+ * Signals are numeric input names, vector entries written as ipv_name.key, or core_frame_time for the previous core
+ * frame's time in milliseconds. Recording runs on the core thread after the output service and only copies doubles
+ * into preallocated arrays. Graphs are fetched from the TimeSeriesServer on the configured port.
+ */
+
+public class TimeSeriesService implements Service {
+
+	public static final String CORE_FRAME_TIME = "core_frame_time";
+
+	private static final Logger sLogger = LogManager.getLogger(TimeSeriesService.class);
+
+	private final InputValues fSharedInputValues;
+	private final OverloadController fOverloadController;
+	private final boolean fEnabled;
+	private final int fPort;
+	private final int fMaxPoints;
+
+	private final TimeSeries[] fSeries;
+	// Input name and vector key of each signal, the key is null for numerics
+	private final String[] fInputs;
+	private final String[] fKeys;
+	private final Map<String, TimeSeries> fSeriesByName;
+
+	private final long fStartTime;
+
+	private TimeSeriesServer mServer;
+
+	@Inject
+	public TimeSeriesService(InputValues inputValues, RobotConfiguration robotConfiguration, OverloadController overloadController) {
+		fSharedInputValues = inputValues;
+		fOverloadController = overloadController;
+		fEnabled = robotConfiguration.getBoolean("global_timeseries", "enabled");
+		fPort = robotConfiguration.getInt("global_timeseries", "port");
+		fMaxPoints = robotConfiguration.getInt("global_timeseries", "max_points");
+
+		int rawCapacity = robotConfiguration.getInt("global_timeseries", "raw_samples");
+		double bucketTime = robotConfiguration.getInt("global_timeseries", "bucket_time") / 1000.0;
+		int bucketCapacity = robotConfiguration.getInt("global_timeseries", "buckets");
+		List<Object> signals = robotConfiguration.getList("global_timeseries", "signals");
+
+		fSeries = new TimeSeries[signals.size()];
+		fInputs = new String[signals.size()];
+		fKeys = new String[signals.size()];
+		fSeriesByName = new LinkedHashMap<>();
+		for (int s = 0; s < signals.size(); s++) {
+			String signal = String.valueOf(signals.get(s));
+			int separator = signal.indexOf('.');
+			fInputs[s] = separator < 0 ? signal : signal.substring(0, separator);
+			fKeys[s] = separator < 0 ? null : signal.substring(separator + 1);
+			fSeries[s] = new TimeSeries(signal, rawCapacity, bucketTime, bucketCapacity);
+			fSeriesByName.put(signal, fSeries[s]);
+		}
+		fStartTime = System.nanoTime();
+	}
+
+	/**
+	 * Seconds since the service was created, the time base of every series
+	 */
+	public double getTime() {
+		return (System.nanoTime() - fStartTime) / 1e9;
+	}
+
+	public Map<String, TimeSeries> getSeries() {
+		return fSeriesByName;
+	}
+
+	public int getMaxPoints() {
+		return fMaxPoints;
+	}
+
+	@Override
+	public void startUp() {
+		if (!fEnabled) {
+			return;
+		}
+		try {
+			mServer = new TimeSeriesServer(this, fPort);
+			mServer.start();
+			sLogger.info("Recording {} time series, serving them on port {}", fSeries.length, fPort);
+		} catch (Exception e) {
+			// Graphs are a debugging aid, the robot runs without them
+			sLogger.error("Could not serve time series on port {}: {}", fPort, e.getMessage());
+		}
+	}
+
+	@Override
+	public void runOneIteration() {
+		if (!fEnabled) {
+			return;
+		}
+		double time = getTime();
+		for (int s = 0; s < fSeries.length; s++) {
+			fSeries[s].record(time, read(s));
+		}
+	}
+
+	@Override
+	public void shutDown() {
+		if (mServer != null) {
+			mServer.stop();
+			mServer = null;
+		}
+	}
+
+	private double read(int signal) {
+		if (fKeys[signal] == null) {
+			return fInputs[signal].equals(CORE_FRAME_TIME) ? fOverloadController.getLastFrameTime() / 1e6 : fSharedInputValues.getNumeric(fInputs[signal]);
+		}
+		Double value = fSharedInputValues.getVector(fInputs[signal]).get(fKeys[signal]);
+		return value != null ? value : Double.NaN;
+	}
+}
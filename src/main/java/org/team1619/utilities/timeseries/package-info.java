@@ -0,0 +1,4 @@
+@NonNullByDefault
+package org.team1619.utilities.timeseries;
+
+import org.uacr.NonNullByDefault;
@@ -0,0 +1,204 @@
+package org.team1619.utilities.trace;
+
+import org.uacr.shared.abstractions.InputValues;
+import org.uacr.shared.abstractions.RobotConfiguration;
+import org.uacr.utilities.injection.Inject;
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records begin/end spans for services, behaviors and state controls into a preallocated ring
+ *
+ * Recording a span is a few array writes with no allocation, so it can stay on during matches. When a core or info
+ * frame runs over its frame_cycle_time_threshold, or when ipb_trace_dump is set, the last window of spans is written
+ * as Chrome trace_event JSON under logPath/traces on a background thread. Open the file in chrome://tracing or
+ * ui.perfetto.dev.
+ */
+
+public class FrameTracer {
+
+	private static final Logger sLogger = LogManager.getLogger(FrameTracer.class);
+
+	private final InputValues fSharedInputValues;
+	private final boolean fEnabled;
+	private final int fMask;
+	private final long fWindow;
+	private final long fMinDumpInterval;
+	private final long fStartTime;
+
+	private final long[] fBegin;
+	private final long[] fEnd;
+	private final long[] fThread;
+	private final int[] fName;
+	// Each slot holds its span index + 1 once written, 0 while a writer owns it
+	private final AtomicLongArray fSequence;
+	private final AtomicLong fNext;
+	private final AtomicLong fLastDumpTime;
+
+	private final List<String> fNames;
+	private final Map<String, Integer> fNameIds;
+	private final ExecutorService fDumpExecutor;
+
+	@Inject
+	public FrameTracer(InputValues inputValues, RobotConfiguration robotConfiguration) {
+		fSharedInputValues = inputValues;
+		fEnabled = robotConfiguration.getBoolean("global_trace", "enabled");
+		int capacity = Integer.highestOneBit(Math.max(2, robotConfiguration.getInt("global_trace", "capacity")) * 2 - 1);
+		fMask = capacity - 1;
+		fWindow = robotConfiguration.getInt("global_trace", "window") * 1_000_000L;
+		fMinDumpInterval = robotConfiguration.getInt("global_trace", "min_dump_interval") * 1_000_000L;
+		fStartTime = System.nanoTime();
+
+		fBegin = new long[capacity];
+		fEnd = new long[capacity];
+		fThread = new long[capacity];
+		fName = new int[capacity];
+		fSequence = new AtomicLongArray(capacity);
+		fNext = new AtomicLong();
+		fLastDumpTime = new AtomicLong(fStartTime - fMinDumpInterval);
+
+		fNames = new ArrayList<>();
+		fNameIds = new HashMap<>();
+		fDumpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Trace dump");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public boolean isEnabled() {
+		return fEnabled;
+	}
+
+	/**
+	 * Returns the id to record spans under, call once when setting up rather than every frame
+	 */
+	public synchronized int register(String name) {
+		Integer id = fNameIds.get(name);
+		if (id == null) {
+			id = fNames.size();
+			fNames.add(name);
+			fNameIds.put(name, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Records a finished span, times are from System.nanoTime()
+	 */
+	public void record(int name, long begin, long end) {
+		if (!fEnabled) {
+			return;
+		}
+		long index = fNext.getAndIncrement();
+		int slot = (int) (index & fMask);
+		fSequence.set(slot, 0);
+		VarHandle.storeStoreFence();
+		fBegin[slot] = begin;
+		fEnd[slot] = end;
+		fThread[slot] = Thread.currentThread().getId();
+		fName[slot] = name;
+		fSequence.set(slot, index + 1);
+	}
+
+	/**
+	 * Writes the last window of spans on the dump thread, requests closer together than min_dump_interval are dropped
+	 */
+	public void requestDump(String reason) {
+		if (!fEnabled) {
+			return;
+		}
+		long now = System.nanoTime();
+		long lastDumpTime = fLastDumpTime.get();
+		if (now - lastDumpTime < fMinDumpInterval || !fLastDumpTime.compareAndSet(lastDumpTime, now)) {
+			return;
+		}
+		fDumpExecutor.execute(() -> dump(reason, now));
+	}
+
+	/**
+	 * Requests a dump if ipb_trace_dump has been set and clears it, so a dump can be asked for from the dashboard
+	 */
+	public void pollDumpRequest() {
+		if (fSharedInputValues.getBoolean("ipb_trace_dump")) {
+			fSharedInputValues.setBoolean("ipb_trace_dump", false);
+			requestDump("requested");
+		}
+	}
+
+	private void dump(String reason, long dumpTime) {
+		Path file = Paths.get(System.getProperty("logPath", "logs"), "traces", "trace-" + System.currentTimeMillis() + "-" + reason + ".json");
+		List<String> names;
+		synchronized (this) {
+			names = new ArrayList<>(fNames);
+		}
+		Map<Long, String> threadNames = new HashMap<>();
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			threadNames.put(thread.getId(), thread.getName());
+		}
+
+		long last = fNext.get();
+		long first = Math.max(0, last - fMask - 1);
+		int spans = 0;
+		try {
+			Files.createDirectories(file.getParent());
+			try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+				writer.write("{\"traceEvents\":[\n");
+				boolean firstEvent = true;
+				List<Long> threads = new ArrayList<>();
+				for (long index = first; index < last; index++) {
+					int slot = (int) (index & fMask);
+					long sequence = fSequence.get(slot);
+					long begin = fBegin[slot];
+					long end = fEnd[slot];
+					long thread = fThread[slot];
+					int name = fName[slot];
+					VarHandle.loadLoadFence();
+					// Skip slots a writer is filling or has already lapped
+					if (sequence != index + 1 || fSequence.get(slot) != sequence || dumpTime - end > fWindow || name >= names.size()) {
+						continue;
+					}
+					if (!threads.contains(thread)) {
+						threads.add(thread);
+					}
+					writer.write(firstEvent ? "" : ",\n");
+					writer.write(String.format(Locale.ROOT, "{\"name\":\"%s\",\"ph\":\"X\",\"pid\":1,\"tid\":%d,\"ts\":%.3f,\"dur\":%.3f}",
+							escape(names.get(name)), thread, (begin - fStartTime) / 1000.0, (end - begin) / 1000.0));
+					firstEvent = false;
+					spans++;
+				}
+				for (long thread : threads) {
+					writer.write(firstEvent ? "" : ",\n");
+					writer.write(String.format(Locale.ROOT, "{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":%d,\"args\":{\"name\":\"%s\"}}",
+							thread, escape(threadNames.getOrDefault(thread, "Thread " + thread))));
+					firstEvent = false;
+				}
+				writer.write("\n]}\n");
+			}
+			sLogger.info("Wrote {} trace spans to {} ({})", spans, file, reason);
+		} catch (IOException e) {
+			sLogger.error("Could not write trace {}: {}", file, e.getMessage());
+		}
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+}
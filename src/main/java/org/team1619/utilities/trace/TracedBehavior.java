@@ -0,0 +1,59 @@
+package org.team1619.utilities.trace;
+
+import org.uacr.models.behavior.Behavior;
+import org.uacr.utilities.Config;
+
+import java.util.Set;
+
+/**
+ * Records a span around each update of another behavior
+ *
+ * The span is named once, after the behavior name it was created with, so nothing is registered or concatenated
+ * when the state is entered. States running the same behavior share its span.
+ */
+
+public class TracedBehavior implements Behavior {
+
+	private final FrameTracer fTracer;
+	private final Behavior fBehavior;
+	private final int fName;
+
+	/**
+	 * @param name the behavior name, the state is not known until the behavior is initialized
+	 */
+	public TracedBehavior(FrameTracer tracer, String name, Behavior behavior) {
+		fTracer = tracer;
+		fBehavior = behavior;
+		fName = tracer.register(name);
+	}
+
+	@Override
+	public void initialize(String stateName, Config config) {
+		fBehavior.initialize(stateName, config);
+	}
+
+	@Override
+	public void update() {
+		long begin = System.nanoTime();
+		try {
+			fBehavior.update();
+		} finally {
+			fTracer.record(fName, begin, System.nanoTime());
+		}
+	}
+
+	@Override
+	public void dispose() {
+		fBehavior.dispose();
+	}
+
+	@Override
+	public boolean isDone() {
+		return fBehavior.isDone();
+	}
+
+	@Override
+	public Set<String> getSubsystems() {
+		return fBehavior.getSubsystems();
+	}
+}
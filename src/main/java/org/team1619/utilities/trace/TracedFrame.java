@@ -0,0 +1,72 @@
+package org.team1619.utilities.trace;
+
+import org.uacr.utilities.services.Service;
+
+/**
+ * Records a span for each frame of a service thread and asks the tracer to dump when one runs over its threshold
+ */
+
+public class TracedFrame {
+
+	private final FrameTracer fTracer;
+	private final String fName;
+	private final long fThreshold;
+
+	private int mName;
+	private long mFrameStart;
+
+	/**
+	 * @param threshold frame time in milliseconds that triggers a dump, the thread's frame_cycle_time_threshold
+	 */
+	public TracedFrame(FrameTracer tracer, String name, int threshold) {
+		fTracer = tracer;
+		fName = name;
+		fThreshold = threshold * 1_000_000L;
+	}
+
+	/**
+	 * Returns a service that marks the start of a frame, it must run first on its thread
+	 */
+	public Service getBeginService() {
+		return new Service() {
+			@Override
+			public void startUp() {
+				mName = fTracer.register(fName + " frame");
+			}
+
+			@Override
+			public void runOneIteration() {
+				mFrameStart = System.nanoTime();
+			}
+
+			@Override
+			public void shutDown() {
+			}
+		};
+	}
+
+	/**
+	 * Returns a service that records the frame, it must run last on its thread
+	 */
+	public Service getEndService() {
+		return new Service() {
+			@Override
+			public void startUp() {
+			}
+
+			@Override
+			public void runOneIteration() {
+				long frameEnd = System.nanoTime();
+				fTracer.record(mName, mFrameStart, frameEnd);
+				if (frameEnd - mFrameStart > fThreshold) {
+					fTracer.requestDump(fName.toLowerCase().replace(' ', '_') + "_overrun");
+				}
+				fTracer.pollDumpRequest();
+			}
+
+			@Override
+			public void shutDown() {
+			}
+		};
+	}
+}
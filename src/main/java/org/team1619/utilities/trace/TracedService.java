@@ -0,0 +1,40 @@
+package org.team1619.utilities.trace;
+
+import org.uacr.utilities.services.Service;
+
+/**
+ * Records a span around each iteration of another service
+ */
+
+public class TracedService implements Service {
+
+	private final FrameTracer fTracer;
+	private final Service fService;
+	private final int fName;
+
+	public TracedService(FrameTracer tracer, String name, Service service) {
+		fTracer = tracer;
+		fService = service;
+		fName = tracer.register(name);
+	}
+
+	@Override
+	public void startUp() throws Exception {
+		fService.startUp();
+	}
+
+	@Override
+	public void runOneIteration() throws Exception {
+		long begin = System.nanoTime();
+		try {
+			fService.runOneIteration();
+		} finally {
+			fTracer.record(fName, begin, System.nanoTime());
+		}
+	}
+
+	@Override
+	public void shutDown() throws Exception {
+		fService.shutDown();
+	}
+}
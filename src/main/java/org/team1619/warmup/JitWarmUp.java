@@ -0,0 +1,157 @@
+package org.team1619.warmup;
+
+import org.team1619.modelfactory.BehaviorDependencies;
+import org.team1619.modelfactory.BehaviorRegistry;
+import org.team1619.state.SimModule;
+import org.team1619.state.StateControls;
+import org.team1619.utilities.input.ControllerState;
+import org.team1619.utilities.input.InputShaping;
+import org.team1619.utilities.overload.OverloadController;
+import org.team1619.utilities.pose.PoseHistory;
+import org.team1619.utilities.restart.WarmRestartSnapshot;
+import org.team1619.utilities.trace.FrameTracer;
+import org.uacr.models.behavior.Behavior;
+import org.uacr.shared.abstractions.FMS;
+import org.uacr.shared.abstractions.InputValues;
+import org.uacr.shared.abstractions.OutputValues;
+import org.uacr.shared.abstractions.RobotConfiguration;
+import org.uacr.utilities.Config;
+import org.uacr.utilities.YamlConfigParser;
+import org.uacr.utilities.injection.Injector;
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs the swerve behavior and state controls against synthetic inputs during robotInit so the JIT has compiled
+ * them before the first enable
+ *
+ * Robot runs it before starting the services, so the only threads it shares the CPU with are the JIT compilers it is
+ * feeding. Boot takes at most time_limit longer.
+ *
+ * Everything runs on a sandbox: input and output values from a separate SimModule injector that no input or output
+ * service reads, and a copy of the robot configuration with warm restart, tracing and overload shedding turned off
+ * so the snapshot file and the real singletons are never touched. The synthetic frames sweep the sticks, heading
+ * and module angles and cycle through the d-pad and start buttons so every branch of the hot code gets compiled.
+ * It stops after iterations frames or time_limit milliseconds.
+ */
+
+public class JitWarmUp {
+
+	private static final Logger sLogger = LogManager.getLogger(JitWarmUp.class);
+
+	// Categories whose enabled flag is forced off in the sandbox configuration
+	private static final Set<String> sDisabledCategories = Set.of("global_warm_restart", "global_trace", "global_overload");
+	private static final String[] sModuleAngles = {"ipn_drivetrain_front_right_angle_position", "ipn_drivetrain_front_left_angle_position",
+			"ipn_drivetrain_back_left_angle_position", "ipn_drivetrain_back_right_angle_position"};
+	private static final String[] sDpad = {"ipb_driver_dpad_up", "ipb_driver_dpad_right", "ipb_driver_dpad_down", "ipb_driver_dpad_left"};
+
+	private final RobotConfiguration fRobotConfiguration;
+	private final boolean fEnabled;
+	private final int fIterations;
+	private final long fTimeLimit;
+
+	public JitWarmUp(RobotConfiguration robotConfiguration) {
+		fRobotConfiguration = robotConfiguration;
+		fEnabled = robotConfiguration.getBoolean("global_warmup", "enabled");
+		fIterations = robotConfiguration.getInt("global_warmup", "iterations");
+		fTimeLimit = robotConfiguration.getInt("global_warmup", "time_limit") * 1_000_000L;
+	}
+
+	public boolean isEnabled() {
+		return fEnabled;
+	}
+
+	public void run() {
+		if (!fEnabled) {
+			return;
+		}
+		CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+		long compilationStart = compilation.isCompilationTimeMonitoringSupported() ? compilation.getTotalCompilationTime() : 0;
+		long start = System.nanoTime();
+
+		Injector sandbox = new Injector(new SimModule());
+		InputValues inputValues = sandbox.getInstance(InputValues.class);
+		OutputValues outputValues = sandbox.getInstance(OutputValues.class);
+		RobotConfiguration robotConfiguration = sandboxConfiguration(fRobotConfiguration);
+
+		FrameTracer tracer = new FrameTracer(inputValues, robotConfiguration);
+		OverloadController overloadController = new OverloadController(inputValues, robotConfiguration, tracer);
+		ControllerState controllerState = new ControllerState(inputValues);
+		StateControls stateControls = new StateControls(inputValues, robotConfiguration, new PoseHistory(robotConfiguration), tracer,
+				new WarmRestartSnapshot(robotConfiguration), controllerState);
+
+		BehaviorDependencies dependencies = new BehaviorDependencies()
+				.add(InputValues.class, inputValues)
+				.add(OutputValues.class, outputValues)
+				.add(RobotConfiguration.class, robotConfiguration)
+				.add(OverloadController.class, overloadController)
+				.add(ControllerState.class, controllerState)
+				.add(InputShaping.class, new InputShaping());
+		YamlConfigParser parser = new YamlConfigParser();
+		parser.load("states.yaml");
+		Config swerveConfig = parser.getConfig("st_drivetrain_swerve");
+		Behavior swerve = BehaviorRegistry.create("bh_drivetrain_swerve", swerveConfig, dependencies);
+
+		String navx = robotConfiguration.getString("global_drivetrain", "navx");
+		Map<String, Double> navxValues = new HashMap<>();
+		stateControls.initialize(FMS.Mode.TELEOP);
+		swerve.initialize("st_drivetrain_swerve", swerveConfig);
+
+		int iterations = 0;
+		while (iterations < fIterations && System.nanoTime() - start < fTimeLimit) {
+			double time = iterations * 0.01;
+			inputValues.setNumeric("ipn_driver_left_x", Math.sin(time * 1.3));
+			inputValues.setNumeric("ipn_driver_left_y", Math.cos(time * 0.7));
+			inputValues.setNumeric("ipn_driver_right_x", Math.sin(time * 2.1));
+			inputValues.setNumeric("ipn_driver_right_y", Math.cos(time * 1.7));
+			for (int m = 0; m < sModuleAngles.length; m++) {
+				inputValues.setNumeric(sModuleAngles[m], Math.sin(time + m) * 4096);
+			}
+			navxValues.put("angle", time * 45 % 720 - 360);
+			navxValues.put("yaw", time * 45 % 360 - 180);
+			inputValues.setVector(navx, navxValues);
+
+			// A fifth of the time each d-pad direction is held, start is tapped every few seconds
+			int dpad = iterations / 100 % (sDpad.length + 1);
+			for (int d = 0; d < sDpad.length; d++) {
+				inputValues.setBoolean(sDpad[d], d == dpad);
+			}
+			inputValues.setBoolean("ipb_driver_start", iterations % 300 < 10);
+			inputValues.setBoolean("ipb_operator_start", iterations % 700 < 150);
+
+			controllerState.update();
+			stateControls.update();
+			swerve.update();
+			iterations++;
+		}
+
+		swerve.dispose();
+		stateControls.dispose();
+
+		long compilationTime = compilation.isCompilationTimeMonitoringSupported() ? compilation.getTotalCompilationTime() - compilationStart : -1;
+		sLogger.info("JIT warm-up ran {} frames in {} ms, {} ms of compilation", iterations, (System.nanoTime() - start) / 1_000_000, compilationTime);
+	}
+
+	// The real configuration with the enabled flag of categories that have side effects reading false
+	private static RobotConfiguration sandboxConfiguration(RobotConfiguration robotConfiguration) {
+		return (RobotConfiguration) Proxy.newProxyInstance(RobotConfiguration.class.getClassLoader(), new Class<?>[]{RobotConfiguration.class}, (proxy, method, arguments) -> {
+			if (method.getName().equals("getBoolean") && arguments != null && arguments.length == 2
+					&& sDisabledCategories.contains(arguments[0]) && "enabled".equals(arguments[1])) {
+				return false;
+			}
+			try {
+				return method.invoke(robotConfiguration, arguments);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		});
+	}
+}
@@ -0,0 +1,4 @@
+@NonNullByDefault
+package org.team1619.warmup;
+
+import org.uacr.NonNullByDefault;
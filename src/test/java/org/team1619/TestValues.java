@@ -0,0 +1,97 @@
+package org.team1619;
+
+import org.uacr.shared.abstractions.InputValues;
+import org.uacr.shared.abstractions.OutputValues;
+import org.uacr.shared.abstractions.RobotConfiguration;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Map backed stand-ins for the framework's shared values and robot configuration
+ */
+
+public final class TestValues {
+
+	private TestValues() {
+	}
+
+	/**
+	 * Input values kept in a map, unset numerics read 0, booleans false and vectors empty
+	 */
+	public static InputValues inputValues() {
+		return (InputValues) values(InputValues.class, new HashMap<>());
+	}
+
+	/**
+	 * Output values that record the last numeric value set for each name into outputs
+	 */
+	public static OutputValues outputValues(Map<String, Object> outputs) {
+		return (OutputValues) values(OutputValues.class, outputs);
+	}
+
+	/**
+	 * The robot configuration from robot-configuration.yaml on the classpath, with the given values replacing
+	 * the file's, keyed "category.key"
+	 */
+	public static RobotConfiguration robotConfiguration(Map<String, Object> overrides) {
+		Map<?, ?> file;
+		try (InputStream in = TestValues.class.getClassLoader().getResourceAsStream("robot-configuration.yaml")) {
+			file = new Yaml().load(in);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return (RobotConfiguration) Proxy.newProxyInstance(RobotConfiguration.class.getClassLoader(), new Class<?>[]{RobotConfiguration.class}, (proxy, method, arguments) -> {
+			String key = arguments[0] + "." + arguments[1];
+			Object value = overrides.containsKey(key) ? overrides.get(key) : ((Map<?, ?>) file.get(arguments[0])).get(arguments[1]);
+			if (method.getName().equals("contains")) {
+				return value != null;
+			}
+			if (value == null) {
+				throw new IllegalArgumentException("No configuration value " + key);
+			}
+			if (method.getReturnType() == int.class) {
+				return ((Number) value).intValue();
+			}
+			if (method.getReturnType() == double.class) {
+				return ((Number) value).doubleValue();
+			}
+			if (method.getReturnType() == String.class) {
+				return value.toString();
+			}
+			return value;
+		});
+	}
+
+	private static Object values(Class<?> type, Map<String, Object> values) {
+		return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, arguments) -> {
+			String name = method.getName();
+			if (name.startsWith("set")) {
+				values.put((String) arguments[0], arguments[arguments.length - 1]);
+				return null;
+			}
+			Object value = values.get((String) arguments[0]);
+			Class<?> returnType = method.getReturnType();
+			if (returnType == double.class) {
+				return value != null ? value : 0.0;
+			}
+			if (returnType == boolean.class) {
+				return value != null ? value : false;
+			}
+			if (returnType == Map.class) {
+				return value != null ? value : Map.of();
+			}
+			if (returnType == List.class) {
+				return value != null ? value : List.of();
+			}
+			return value;
+		});
+	}
+}
@@ -0,0 +1,102 @@
+package org.team1619.utilities.config;
+
+import org.junit.jupiter.api.Test;
+import org.uacr.models.behavior.Behavior;
+import org.uacr.shared.abstractions.RobotConfiguration;
+import org.uacr.utilities.Config;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReloadingBehaviorTest {
+
+	@Test
+	public void replacementIsBuiltOffTheCoreThreadAndSwappedInOnEntry() throws Exception {
+		LiveConfiguration liveConfiguration = new LiveConfiguration();
+		liveConfiguration.setBaseline(Map.of("st_test", Map.of("speed", 1)), Map.of());
+		List<Thread> buildThreads = new ArrayList<>();
+		List<Integer> speeds = new ArrayList<>();
+		ReloadingBehavior behavior = new ReloadingBehavior(liveConfiguration, config -> {
+			buildThreads.add(Thread.currentThread());
+			return new SpeedBehavior(config.getInt("speed"), speeds);
+		}, new Config("test", Map.of("speed", 1)));
+
+		behavior.initialize("st_test", new Config("test", Map.of("speed", 1)));
+		liveConfiguration.stage(Map.of("st_test", Map.of("speed", 2)), Map.of());
+		liveConfiguration.commit();
+		// Entering the state before the replacement is ready keeps the running behavior
+		behavior.initialize("st_test", new Config("test", Map.of("speed", 1)));
+
+		Thread infoThread = new Thread(liveConfiguration::rebuildBehaviors);
+		infoThread.start();
+		infoThread.join();
+		behavior.initialize("st_test", new Config("test", Map.of("speed", 1)));
+
+		assertEquals(List.of(1, 1, 2), speeds);
+		assertEquals(2, buildThreads.size());
+		assertEquals(infoThread, buildThreads.get(1));
+
+		// Nothing is rebuilt until the configuration changes again
+		liveConfiguration.rebuildBehaviors();
+		assertEquals(2, buildThreads.size());
+	}
+
+	@Test
+	public void overlayOnlyReplacesGetters() {
+		LiveConfiguration liveConfiguration = new LiveConfiguration();
+		liveConfiguration.setBaseline(Map.of(), Map.of("global_test", Map.of("value", 1)));
+		liveConfiguration.stage(Map.of(), Map.of("global_test", Map.of("value", 2)));
+		liveConfiguration.commit();
+
+		List<String> calls = new ArrayList<>();
+		RobotConfiguration base = (RobotConfiguration) Proxy.newProxyInstance(
+				getClass().getClassLoader(), new Class<?>[]{RobotConfiguration.class}, (proxy, method, arguments) -> {
+					calls.add(method.getName());
+					return method.getReturnType() == boolean.class ? false : 1;
+				});
+		RobotConfiguration overlay = liveConfiguration.overlay(base);
+
+		assertEquals(2, overlay.getInt("global_test", "value"));
+		assertEquals(false, overlay.contains("global_test", "value"));
+		assertEquals(List.of("contains"), calls);
+	}
+
+	private static class SpeedBehavior implements Behavior {
+
+		private final int fSpeed;
+		private final List<Integer> fInitializedSpeeds;
+
+		private SpeedBehavior(int speed, List<Integer> initializedSpeeds) {
+			fSpeed = speed;
+			fInitializedSpeeds = initializedSpeeds;
+		}
+
+		@Override
+		public void initialize(String stateName, Config config) {
+			fInitializedSpeeds.add(fSpeed);
+		}
+
+		@Override
+		public void update() {
+		}
+
+		@Override
+		public void dispose() {
+		}
+
+		@Override
+		public boolean isDone() {
+			return false;
+		}
+
+		@Override
+		public Set<String> getSubsystems() {
+			return Set.of();
+		}
+	}
+}
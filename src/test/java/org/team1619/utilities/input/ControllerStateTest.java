@@ -0,0 +1,132 @@
+package org.team1619.utilities.input;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.team1619.TestValues;
+import org.uacr.models.exceptions.ConfigurationException;
+import org.uacr.shared.abstractions.InputValues;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ControllerStateTest {
+
+	private static final long FRAME = 10_000_000;
+
+	private InputValues mInputValues;
+	private ControllerState mControllerState;
+	private long mTime;
+
+	@BeforeEach
+	public void setUp() {
+		Map<String, Integer> buttons = new LinkedHashMap<>();
+		buttons.put("ipb_driver_a", 0);
+		buttons.put("ipb_driver_b", 0);
+		buttons.put("ipb_operator_a", 1);
+		mInputValues = TestValues.inputValues();
+		mControllerState = new ControllerState(mInputValues, buttons);
+		mTime = 0;
+	}
+
+	@Test
+	public void handlesArePortAndBit() {
+		assertEquals(0, mControllerState.getHandle("ipb_driver_a"));
+		assertEquals(1, mControllerState.getHandle("ipb_driver_b"));
+		assertEquals(64, mControllerState.getHandle("ipb_operator_a"));
+		assertThrows(ConfigurationException.class, () -> mControllerState.getHandle("ipb_driver_x"));
+	}
+
+	@Test
+	public void rejectsBadPorts() {
+		Map<String, Integer> negative = Map.of("ipb_driver_a", -1);
+		assertThrows(ConfigurationException.class, () -> new ControllerState(mInputValues, negative));
+
+		Map<String, Integer> crowded = new LinkedHashMap<>();
+		for (int b = 0; b <= Long.SIZE; b++) {
+			crowded.put("ipb_button_" + b, 0);
+		}
+		assertThrows(ConfigurationException.class, () -> new ControllerState(mInputValues, crowded));
+	}
+
+	@Test
+	public void edgesLastOneFrame() {
+		int a = mControllerState.getHandle("ipb_driver_a");
+
+		mInputValues.setBoolean("ipb_driver_a", true);
+		frame();
+		assertTrue(mControllerState.isPressed(a));
+		assertTrue(mControllerState.isRisingEdge(a));
+		assertFalse(mControllerState.isFallingEdge(a));
+
+		frame();
+		assertTrue(mControllerState.isPressed(a));
+		assertFalse(mControllerState.isRisingEdge(a));
+
+		mInputValues.setBoolean("ipb_driver_a", false);
+		frame();
+		assertFalse(mControllerState.isPressed(a));
+		assertFalse(mControllerState.isRisingEdge(a));
+		assertTrue(mControllerState.isFallingEdge(a));
+
+		frame();
+		assertFalse(mControllerState.isFallingEdge(a));
+	}
+
+	@Test
+	public void masksHoldEveryButtonOnAPort() {
+		mInputValues.setBoolean("ipb_driver_a", true);
+		frame();
+		mInputValues.setBoolean("ipb_driver_b", true);
+		mInputValues.setBoolean("ipb_operator_a", true);
+		frame();
+
+		assertEquals(0b11, mControllerState.getPressedMask(0));
+		assertEquals(0b10, mControllerState.getRisingMask(0));
+		assertEquals(0b1, mControllerState.getPressedMask(1));
+		assertEquals(0b1, mControllerState.getRisingMask(1));
+		// Ports without buttons read as nothing pressed
+		assertEquals(0, mControllerState.getPressedMask(5));
+
+		mInputValues.setBoolean("ipb_driver_a", false);
+		frame();
+		assertEquals(0b10, mControllerState.getPressedMask(0));
+		assertEquals(0b01, mControllerState.getFallingMask(0));
+		assertEquals(0, mControllerState.getRisingMask(0));
+	}
+
+	@Test
+	public void holdTimeCountsFromTheRisingEdge() {
+		int a = mControllerState.getHandle("ipb_driver_a");
+		assertEquals(0, mControllerState.getHoldTime(a));
+
+		mInputValues.setBoolean("ipb_driver_a", true);
+		frame();
+		assertEquals(0, mControllerState.getHoldTime(a));
+
+		int heldFor = 0;
+		for (int f = 0; f < 150; f++) {
+			frame();
+			if (mControllerState.isHeldFor(a, 1000)) {
+				heldFor++;
+				assertEquals(1000, mControllerState.getHoldTime(a));
+			}
+		}
+		assertEquals(1, heldFor);
+		assertEquals(1500, mControllerState.getHoldTime(a));
+
+		mInputValues.setBoolean("ipb_driver_a", false);
+		frame();
+		assertEquals(0, mControllerState.getHoldTime(a));
+		assertFalse(mControllerState.isHeldFor(a, 1000));
+	}
+
+	private void frame() {
+		mTime += FRAME;
+		mControllerState.update(mTime);
+	}
+}
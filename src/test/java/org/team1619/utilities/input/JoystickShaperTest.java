@@ -0,0 +1,86 @@
+package org.team1619.utilities.input;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.team1619.TestValues;
+import org.uacr.models.exceptions.ConfigurationException;
+import org.uacr.shared.abstractions.InputValues;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JoystickShaperTest {
+
+	private InputShaping mInputShaping;
+	private InputValues mInputValues;
+
+	@BeforeEach
+	public void setUp() {
+		mInputShaping = new InputShaping("input-shaping-test.yaml");
+		mInputValues = TestValues.inputValues();
+	}
+
+	@Test
+	public void deadbandRescalesToTheFullRange() {
+		JoystickShaper shaper = mInputShaping.create("deadband");
+		int channel = shaper.getChannel("deadband");
+
+		mInputValues.setNumeric("ipn_test_x", 0.05);
+		shaper.update(mInputValues);
+		assertEquals(0.0, shaper.get(channel), 1e-12);
+
+		mInputValues.setNumeric("ipn_test_x", -0.55);
+		shaper.update(mInputValues);
+		assertEquals(-0.5, shaper.get(channel), 1e-12);
+
+		mInputValues.setNumeric("ipn_test_x", 1.0);
+		shaper.update(mInputValues);
+		assertEquals(1.0, shaper.get(channel), 1e-12);
+	}
+
+	@Test
+	public void rejectsDeadbandsOutsideTheStickRange() {
+		assertThrows(ConfigurationException.class, () -> mInputShaping.create("full_deadband"));
+		assertThrows(ConfigurationException.class, () -> mInputShaping.create("negative_deadband"));
+		assertThrows(ConfigurationException.class, () -> mInputShaping.create("full_radial_x", "full_radial_y"));
+	}
+
+	@Test
+	public void radialDeadbandRunsOnTheRawValues() {
+		JoystickShaper shaper = mInputShaping.create("scaled_x", "scaled_y");
+		int x = shaper.getChannel("scaled_x");
+		int y = shaper.getChannel("scaled_y");
+
+		// The raw stick is inside the deadband even though the scaled one would not be
+		mInputValues.setNumeric("ipn_test_x", 0.3);
+		mInputValues.setNumeric("ipn_test_y", 0.4);
+		shaper.update(mInputValues);
+		assertEquals(0.0, shaper.get(x), 1e-12);
+		assertEquals(0.0, shaper.get(y), 1e-12);
+
+		// Length 1.0 rescales to 1.0, then both channels are scaled
+		mInputValues.setNumeric("ipn_test_x", 0.6);
+		mInputValues.setNumeric("ipn_test_y", 0.8);
+		shaper.update(mInputValues);
+		assertEquals(1.2, shaper.get(x), 1e-12);
+		assertEquals(1.6, shaper.get(y), 1e-12);
+	}
+
+	@Test
+	public void rejectsARadialDeadbandDeclaredOnBothChannels() {
+		assertThrows(ConfigurationException.class, () -> mInputShaping.create("twice_x", "twice_y"));
+	}
+
+	@Test
+	public void shapersDoNotShareValues() {
+		JoystickShaper first = mInputShaping.create("deadband");
+		JoystickShaper second = mInputShaping.create("deadband");
+		assertFalse(first == second);
+
+		mInputValues.setNumeric("ipn_test_x", 1.0);
+		first.update(mInputValues);
+		assertEquals(1.0, first.get(0), 1e-12);
+		assertEquals(0.0, second.get(0), 1e-12);
+	}
+}
@@ -0,0 +1,132 @@
+package org.team1619.utilities.pose;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PoseHistoryTest {
+
+	private PoseHistory mHistory;
+	private double[] mPose;
+
+	@BeforeEach
+	public void setUp() {
+		mHistory = new PoseHistory(8);
+		mPose = new double[3];
+	}
+
+	@Test
+	public void interpolatesBetweenPoses() {
+		mHistory.add(1.0, 0.0, 0.0, 170.0);
+		mHistory.add(2.0, 4.0, -2.0, -170.0);
+
+		assertTrue(mHistory.getPose(1.25, mPose));
+		assertEquals(1.0, mPose[0], 1e-9);
+		assertEquals(-0.5, mPose[1], 1e-9);
+		// Heading goes the short way across 180
+		assertEquals(175.0, mPose[2], 1e-9);
+
+		assertTrue(mHistory.getPose(2.0, mPose));
+		assertEquals(4.0, mPose[0], 1e-9);
+		assertEquals(-170.0, mPose[2], 1e-9);
+	}
+
+	@Test
+	public void rejectsTimesOutsideTheHistory() {
+		assertFalse(mHistory.getPose(1.0, mPose));
+		assertFalse(mHistory.getLatest(mPose));
+
+		mHistory.add(1.0, 0.0, 0.0, 0.0);
+		mHistory.add(2.0, 1.0, 0.0, 0.0);
+		assertFalse(mHistory.getPose(0.5, mPose));
+		assertFalse(mHistory.getPose(2.5, mPose));
+		assertFalse(mHistory.applyCorrection(3.0, 0.0, 0.0, 0.0));
+	}
+
+	@Test
+	public void dropsTheOldestPoseWhenFull() {
+		for (int t = 0; t < 10; t++) {
+			mHistory.add(t, t, 0.0, 0.0);
+		}
+
+		assertEquals(8, mHistory.size());
+		assertFalse(mHistory.getPose(1.5, mPose));
+		assertTrue(mHistory.getPose(2.5, mPose));
+		assertEquals(2.5, mPose[0], 1e-9);
+		assertTrue(mHistory.getLatest(mPose));
+		assertEquals(9.0, mPose[0], 1e-9);
+	}
+
+	@Test
+	public void ignoresPosesOlderThanTheNewest() {
+		mHistory.add(2.0, 2.0, 0.0, 0.0);
+		mHistory.add(1.0, 5.0, 0.0, 0.0);
+		mHistory.add(2.0, 5.0, 0.0, 0.0);
+
+		assertEquals(1, mHistory.size());
+		assertTrue(mHistory.getLatest(mPose));
+		assertEquals(2.0, mPose[0], 1e-9);
+	}
+
+	@Test
+	public void correctionMovesLaterPosesRigidly() {
+		// Driving along x at one unit per second
+		for (int t = 0; t <= 4; t++) {
+			mHistory.add(t, t, 0.0, 0.0);
+		}
+
+		// At t = 2 the robot was really at (2, 1) facing 90 degrees
+		assertTrue(mHistory.applyCorrection(2.0, 2.0, 1.0, 90.0));
+
+		assertTrue(mHistory.getPose(1.0, mPose));
+		assertEquals(1.0, mPose[0], 1e-9);
+		assertEquals(0.0, mPose[1], 1e-9);
+		assertEquals(0.0, mPose[2], 1e-9);
+
+		assertTrue(mHistory.getPose(4.0, mPose));
+		assertEquals(2.0, mPose[0], 1e-9);
+		assertEquals(3.0, mPose[1], 1e-9);
+		assertEquals(90.0, mPose[2], 1e-9);
+	}
+
+	@Test
+	public void correctionCarriesIntoLaterSamples() {
+		for (int t = 0; t <= 4; t++) {
+			mHistory.add(t, t, 0.0, 0.0);
+		}
+		assertTrue(mHistory.applyCorrection(2.0, 2.0, 1.0, 90.0));
+
+		// Raw odometry keeps counting from where it was, the history continues from the corrected pose
+		mHistory.add(5.0, 5.0, 0.0, 0.0);
+		assertTrue(mHistory.getLatest(mPose));
+		assertEquals(2.0, mPose[0], 1e-9);
+		assertEquals(4.0, mPose[1], 1e-9);
+		assertEquals(90.0, mPose[2], 1e-9);
+
+		// A second correction composes with the first
+		assertTrue(mHistory.applyCorrection(5.0, 0.0, 0.0, 90.0));
+		mHistory.add(6.0, 6.0, 0.0, 0.0);
+		assertTrue(mHistory.getLatest(mPose));
+		assertEquals(0.0, mPose[0], 1e-9);
+		assertEquals(1.0, mPose[1], 1e-9);
+		assertEquals(90.0, mPose[2], 1e-9);
+	}
+
+	@Test
+	public void clearDropsTheCorrection() {
+		mHistory.add(0.0, 0.0, 0.0, 0.0);
+		mHistory.add(1.0, 1.0, 0.0, 0.0);
+		assertTrue(mHistory.applyCorrection(1.0, 5.0, 5.0, 45.0));
+
+		mHistory.clear();
+		assertEquals(0, mHistory.size());
+		mHistory.add(2.0, 2.0, 0.0, 0.0);
+		assertTrue(mHistory.getLatest(mPose));
+		assertEquals(2.0, mPose[0], 1e-9);
+		assertEquals(0.0, mPose[1], 1e-9);
+		assertEquals(0.0, mPose[2], 1e-9);
+	}
+}
@@ -0,0 +1,55 @@
+package org.team1619.utilities.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BehaviorSchedulerTest {
+
+	@Test
+	public void spreadsBehaviorsAcrossPhases() {
+		BehaviorScheduler scheduler = new BehaviorScheduler();
+
+		assertEquals(0, scheduler.assignPhase("a", 2));
+		assertEquals(1, scheduler.assignPhase("b", 2));
+		// Every phase of 4 carries one update from the divisor 2 behaviors, the first least loaded one wins
+		assertEquals(0, scheduler.assignPhase("c", 4));
+		assertEquals(1, scheduler.assignPhase("d", 4));
+		assertEquals(2, scheduler.assignPhase("e", 4));
+		assertEquals(3, scheduler.assignPhase("f", 4));
+	}
+
+	@Test
+	public void roundRobinPhasesCountTowardsTheLoad() {
+		BehaviorScheduler scheduler = new BehaviorScheduler();
+
+		// 7 does not divide the 60 frame window, its first pass lands on frames 0, 7, 14, ... 56
+		assertEquals(0, scheduler.assignPhase("a", 7));
+		// Phase 0 of divisor 2 carries 5 of those frames and phase 1 only 4
+		assertEquals(1, scheduler.assignPhase("b", 2));
+		assertEquals(1, scheduler.assignPhase("c", 7));
+	}
+
+	@Test
+	public void phasesDoNotCollideUntilEveryPhaseIsTaken() {
+		BehaviorScheduler scheduler = new BehaviorScheduler();
+		boolean[] taken = new boolean[5];
+		for (int b = 0; b < 5; b++) {
+			int phase = scheduler.assignPhase("behavior " + b, 5);
+			assertTrue(phase >= 0 && phase < 5);
+			assertTrue(!taken[phase], "phase " + phase + " is only given out once");
+			taken[phase] = true;
+		}
+	}
+
+	@Test
+	public void aReleasedPhaseIsGivenOutAgain() {
+		BehaviorScheduler scheduler = new BehaviorScheduler();
+
+		assertEquals(0, scheduler.assignPhase("a", 2));
+		assertEquals(1, scheduler.assignPhase("b", 2));
+		scheduler.releasePhase(2, 0);
+		assertEquals(0, scheduler.assignPhase("c", 2));
+	}
+}
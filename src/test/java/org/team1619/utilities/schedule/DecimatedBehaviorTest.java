@@ -0,0 +1,173 @@
+package org.team1619.utilities.schedule;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.team1619.TestValues;
+import org.team1619.utilities.input.ControllerState;
+import org.uacr.models.behavior.Behavior;
+import org.uacr.shared.abstractions.InputValues;
+import org.uacr.utilities.Config;
+import org.uacr.utilities.services.Service;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DecimatedBehaviorTest {
+
+	private static final long FRAME = 10_000_000;
+
+	private InputValues mInputValues;
+	private ControllerState mControllerState;
+	private BehaviorScheduler mScheduler;
+	private Service mFrameService;
+	private EdgeCounter mCounter;
+	private DecimatedBehavior mDecimated;
+	private long mTime;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		mInputValues = TestValues.inputValues();
+		mControllerState = new ControllerState(mInputValues, Map.of("ipb_driver_a", 0));
+		mScheduler = new BehaviorScheduler();
+		mFrameService = mScheduler.getFrameService();
+		mCounter = new EdgeCounter(mControllerState, mControllerState.getHandle("ipb_driver_a"));
+		mDecimated = new DecimatedBehavior(mScheduler, mControllerState, "counter", 4, mCounter);
+		mTime = 0;
+	}
+
+	@Test
+	public void tapOnASkippedFrameIsSeenOnTheNextUpdate() throws Exception {
+		// The first update always runs
+		enterState();
+		assertEquals(1, mCounter.mUpdates);
+
+		mInputValues.setBoolean("ipb_driver_a", true);
+		frame();
+		mInputValues.setBoolean("ipb_driver_a", false);
+		frame();
+		assertEquals(1, mCounter.mUpdates);
+
+		while (mCounter.mUpdates == 1) {
+			frame();
+		}
+		assertEquals(1, mCounter.mRisingEdges);
+		assertEquals(1, mCounter.mFallingEdges);
+
+		// Collected edges are only reported once
+		for (int f = 0; f < 4; f++) {
+			frame();
+		}
+		assertEquals(1, mCounter.mRisingEdges);
+		assertEquals(1, mCounter.mFallingEdges);
+	}
+
+	@Test
+	public void otherBehaviorsStillSeeThisFramesEdges() throws Exception {
+		int a = mControllerState.getHandle("ipb_driver_a");
+		enterState();
+
+		mInputValues.setBoolean("ipb_driver_a", true);
+		frame();
+		assertTrue(mControllerState.isRisingEdge(a));
+		frame();
+		assertFalse(mControllerState.isRisingEdge(a));
+	}
+
+	@Test
+	public void edgesBeforeEnteringTheStateAreDropped() throws Exception {
+		enterState();
+		// Tapped while the behavior is skipping frames, then the state is entered again
+		mInputValues.setBoolean("ipb_driver_a", true);
+		frame();
+		mInputValues.setBoolean("ipb_driver_a", false);
+		frame();
+
+		enterState();
+		assertEquals(1, mCounter.mUpdates);
+		assertEquals(0, mCounter.mRisingEdges);
+		assertEquals(0, mCounter.mFallingEdges);
+	}
+
+	@Test
+	public void holdThresholdCrossedOnASkippedFrameIsSeenOnce() throws Exception {
+		enterState();
+		mInputValues.setBoolean("ipb_driver_a", true);
+		for (int f = 0; f < 200; f++) {
+			frame();
+		}
+		assertEquals(1, mCounter.mHeld);
+	}
+
+	// One core frame, the controller and the scheduler advance before the states service runs the behavior
+	private void frame() throws Exception {
+		mTime += FRAME;
+		mControllerState.update(mTime);
+		mFrameService.runOneIteration();
+		mDecimated.update();
+	}
+
+	// A frame where the state is entered, initialize runs before that frame's update
+	private void enterState() throws Exception {
+		mTime += FRAME;
+		mControllerState.update(mTime);
+		mFrameService.runOneIteration();
+		mDecimated.initialize("st_counter", null);
+		mDecimated.update();
+	}
+
+	private static class EdgeCounter implements Behavior {
+
+		private final ControllerState fControllerState;
+		private final int fHandle;
+
+		private int mUpdates;
+		private int mRisingEdges;
+		private int mFallingEdges;
+		private int mHeld;
+
+		private EdgeCounter(ControllerState controllerState, int handle) {
+			fControllerState = controllerState;
+			fHandle = handle;
+		}
+
+		@Override
+		public void initialize(String stateName, Config config) {
+			mUpdates = 0;
+			mRisingEdges = 0;
+			mFallingEdges = 0;
+			mHeld = 0;
+		}
+
+		@Override
+		public void update() {
+			mUpdates++;
+			if (fControllerState.isRisingEdge(fHandle)) {
+				mRisingEdges++;
+			}
+			if (fControllerState.isFallingEdge(fHandle)) {
+				mFallingEdges++;
+			}
+			if (fControllerState.isHeldFor(fHandle, 1000)) {
+				mHeld++;
+			}
+		}
+
+		@Override
+		public void dispose() {
+		}
+
+		@Override
+		public boolean isDone() {
+			return true;
+		}
+
+		@Override
+		public Set<String> getSubsystems() {
+			return Set.of();
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package org.team1619.utilities.services;
+
+import org.junit.jupiter.api.Test;
+import org.uacr.utilities.services.Service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PipelinedServiceTest {
+
+	private static final int FRAMES = 50;
+
+	@Test
+	public void outputOverlapsTheNextInputButNeverTheStates() throws Exception {
+		AtomicBoolean outputRunning = new AtomicBoolean();
+		AtomicBoolean statesOverlapped = new AtomicBoolean();
+		AtomicInteger inputOverlaps = new AtomicInteger();
+		AtomicInteger statesFrames = new AtomicInteger();
+		AtomicInteger outputFrames = new AtomicInteger();
+		AtomicBoolean outputBehindStates = new AtomicBoolean();
+
+		PipelinedService service = new PipelinedService(new FrameLatencyRecorder("Test", 1000),
+				stage(() -> {
+					if (outputRunning.get()) {
+						inputOverlaps.incrementAndGet();
+					}
+					sleep(1);
+				}),
+				stage(() -> {
+					statesOverlapped.compareAndSet(false, outputRunning.get());
+					statesFrames.incrementAndGet();
+				}),
+				stage(() -> {
+					outputRunning.set(true);
+					// Each output belongs to the states frame that handed it off
+					outputBehindStates.compareAndSet(false, outputFrames.incrementAndGet() != statesFrames.get());
+					sleep(3);
+					outputRunning.set(false);
+				}));
+
+		service.startUp();
+		for (int frame = 0; frame < FRAMES; frame++) {
+			service.runOneIteration();
+		}
+		service.shutDown();
+
+		assertFalse(statesOverlapped.get(), "states never run while outputs are being sent");
+		assertFalse(outputBehindStates.get(), "every frame's outputs are sent before the next states run");
+		assertTrue(inputOverlaps.get() > FRAMES / 2, "inputs are read while the previous outputs are sent, " + inputOverlaps.get() + " times");
+		assertEquals(FRAMES, statesFrames.get());
+		assertEquals(FRAMES, outputFrames.get(), "no frame is dropped before the output stage");
+	}
+
+	private static Service stage(Runnable runnable) {
+		return new Service() {
+			@Override
+			public void startUp() {
+			}
+
+			@Override
+			public void runOneIteration() {
+				runnable.run();
+			}
+
+			@Override
+			public void shutDown() {
+			}
+		};
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package org.team1619.utilities.swerve;
+
+import org.junit.jupiter.api.Test;
+import org.team1619.TestValues;
+import org.team1619.behavior.Behavior_Drivetrain_Swerve;
+import org.team1619.utilities.input.ControllerState;
+import org.team1619.utilities.input.InputShaping;
+import org.team1619.utilities.input.JoystickShaper;
+import org.team1619.utilities.overload.OverloadController;
+import org.team1619.utilities.trace.FrameTracer;
+import org.uacr.shared.abstractions.InputValues;
+import org.uacr.shared.abstractions.RobotConfiguration;
+import org.uacr.utilities.Config;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the batch gives the same module commands as Behavior_Drivetrain_Swerve for the same inputs
+ */
+
+public class SwerveKinematicsBatchTest {
+
+	private static final int STATES = 1000;
+
+	@Test
+	public void matchesTheBehaviorOnRandomStates() {
+		RobotConfiguration robotConfiguration = TestValues.robotConfiguration(Map.of());
+		InputValues inputValues = TestValues.inputValues();
+		Map<String, Object> outputs = new HashMap<>();
+		FrameTracer tracer = new FrameTracer(inputValues, robotConfiguration);
+		InputShaping inputShaping = new InputShaping();
+		Behavior_Drivetrain_Swerve behavior = new Behavior_Drivetrain_Swerve(inputValues, TestValues.outputValues(outputs), new Config("st_drivetrain_swerve", Map.of()),
+				robotConfiguration, new OverloadController(inputValues, robotConfiguration, tracer), new ControllerState(inputValues), inputShaping);
+		JoystickShaper shaper = inputShaping.create("forward", "strafe", "rotate");
+		double positionPerDegree = robotConfiguration.getDouble("global_drivetrain", "angle_position_per_degree");
+
+		double[] forward = new double[STATES];
+		double[] strafe = new double[STATES];
+		double[] rotate = new double[STATES];
+		double[] heading = new double[STATES];
+		double[][] moduleAngles = new double[SwerveKinematics.MODULES][STATES];
+		double[][] expectedSpeeds = new double[SwerveKinematics.MODULES][STATES];
+		double[][] expectedAngles = new double[SwerveKinematics.MODULES][STATES];
+
+		Random random = new Random(1619);
+		for (int i = 0; i < STATES; i++) {
+			inputValues.setNumeric("ipn_driver_left_x", random.nextDouble() * 2 - 1);
+			inputValues.setNumeric("ipn_driver_left_y", random.nextDouble() * 2 - 1);
+			inputValues.setNumeric("ipn_driver_right_x", random.nextDouble() * 2 - 1);
+			double navxAngle = random.nextDouble() * 720 - 360;
+			inputValues.setVector("ipv_navx", Map.of("angle", navxAngle));
+			inputValues.setBoolean("ipb_swerve_field_centric", true);
+			for (int m = 0; m < SwerveKinematics.MODULES; m++) {
+				// The behavior steers from the continuous steering encoder position
+				double position = (random.nextDouble() * 720 - 360) * positionPerDegree;
+				moduleAngles[m][i] = position / positionPerDegree;
+				inputValues.setNumeric("ipn_drivetrain_" + SwerveKinematics.MODULE_NAMES[m] + "_angle_position", position);
+			}
+
+			// A fresh state each time so the steering feedforward and filters have no history
+			behavior.initialize("st_drivetrain_swerve", new Config("st_drivetrain_swerve", Map.of()));
+			behavior.update();
+			for (int m = 0; m < SwerveKinematics.MODULES; m++) {
+				expectedSpeeds[m][i] = (double) outputs.get("opn_drivetrain_" + SwerveKinematics.MODULE_NAMES[m] + "_speed");
+				expectedAngles[m][i] = (double) outputs.get("opn_drivetrain_" + SwerveKinematics.MODULE_NAMES[m] + "_angle");
+			}
+
+			shaper.reset();
+			shaper.update(inputValues);
+			forward[i] = shaper.get(shaper.getChannel("forward"));
+			strafe[i] = shaper.get(shaper.getChannel("strafe"));
+			rotate[i] = shaper.get(shaper.getChannel("rotate"));
+			heading[i] = navxAngle - 90;
+		}
+
+		double[][] speeds = new double[SwerveKinematics.MODULES][STATES];
+		double[][] angles = new double[SwerveKinematics.MODULES][STATES];
+		new SwerveKinematicsBatch(robotConfiguration.getDouble("global_drivetrain", "robot_length"), robotConfiguration.getDouble("global_drivetrain", "robot_width"),
+				robotConfiguration.getDouble("global_drivetrain", "speed_scale_exponent")).compute(forward, strafe, rotate, heading, true, moduleAngles, speeds, angles);
+
+		for (int m = 0; m < SwerveKinematics.MODULES; m++) {
+			for (int i = 0; i < STATES; i++) {
+				assertEquals(expectedSpeeds[m][i], speeds[m][i], 1e-12, SwerveKinematics.MODULE_NAMES[m] + " speed in state " + i);
+				assertEquals(expectedAngles[m][i], angles[m][i], 1e-12, SwerveKinematics.MODULE_NAMES[m] + " angle in state " + i);
+			}
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package org.team1619.utilities.timeseries;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimeSeriesTest {
+
+	@Test
+	public void downsampleReturnsSmallInputsUnchanged() {
+		double[] times = {0.0, 1.0, 2.0};
+		double[] values = {5.0, 6.0, 7.0};
+
+		double[][] result = TimeSeries.downsample(times, values, 3, 10);
+		assertArrayEquals(times, result[0], 0.0);
+		assertArrayEquals(values, result[1], 0.0);
+	}
+
+	@Test
+	public void downsampleKeepsTheEndsAndTheSpike() {
+		int size = 1000;
+		double[] times = new double[size];
+		double[] values = new double[size];
+		for (int i = 0; i < size; i++) {
+			times[i] = i * 0.01;
+			values[i] = i == 437 ? 50.0 : 1.0;
+		}
+
+		double[][] result = TimeSeries.downsample(times, values, size, 20);
+		assertEquals(20, result[0].length);
+		assertEquals(times[0], result[0][0], 0.0);
+		assertEquals(times[size - 1], result[0][19], 0.0);
+		assertTrue(contains(result[1], 50.0), "the spike is kept");
+		for (int i = 1; i < result[0].length; i++) {
+			assertTrue(result[0][i] > result[0][i - 1], "times stay in order");
+		}
+	}
+
+	@Test
+	public void queryReturnsRawSamplesInRange() {
+		TimeSeries series = new TimeSeries("test", 100, 1.0, 10);
+		for (int i = 0; i < 50; i++) {
+			series.record(i * 0.1, i);
+		}
+
+		double[][] result = series.query(1.0, 2.0, 1000);
+		assertEquals(11, result[0].length);
+		assertEquals(1.0, result[0][0], 1e-9);
+		assertEquals(10.0, result[1][0], 1e-9);
+		assertEquals(20.0, result[1][10], 1e-9);
+	}
+
+	@Test
+	public void ignoresNaNAndOutOfOrderSamples() {
+		TimeSeries series = new TimeSeries("test", 10, 1.0, 10);
+		series.record(1.0, 1.0);
+		series.record(2.0, Double.NaN);
+		series.record(0.5, 2.0);
+		series.record(1.0, 3.0);
+
+		double[][] result = series.query(0.0, 10.0, 100);
+		assertArrayEquals(new double[]{1.0}, result[0], 0.0);
+		assertArrayEquals(new double[]{1.0}, result[1], 0.0);
+	}
+
+	@Test
+	public void spikesSurviveInBucketsAfterLeavingTheRawRing() {
+		TimeSeries series = new TimeSeries("test", 10, 1.0, 100);
+		for (int i = 0; i < 100; i++) {
+			double time = i * 0.1;
+			series.record(time, i == 23 ? 50.0 : i == 57 ? -50.0 : 0.0);
+		}
+
+		double[][] result = series.query(0.0, 10.0, 1000);
+		assertTrue(contains(result[1], 50.0), "the maximum of an old bucket is kept");
+		assertTrue(contains(result[1], -50.0), "the minimum of an old bucket is kept");
+		// Buckets stop where the raw ring starts, so no time appears twice
+		for (int i = 1; i < result[0].length; i++) {
+			assertTrue(result[0][i] > result[0][i - 1], "times stay in order");
+		}
+		assertEquals(9.9, result[0][result[0].length - 1], 1e-9);
+	}
+
+	@Test
+	public void spikesInTheOpenBucketSurviveAfterLeavingTheRawRing() {
+		// The raw ring holds 0.4 s and the open bucket covers the whole second
+		TimeSeries series = new TimeSeries("test", 4, 1.0, 10);
+		for (int i = 0; i < 10; i++) {
+			series.record(i * 0.1, i == 2 ? 50.0 : 0.0);
+		}
+
+		double[][] result = series.query(0.0, 1.0, 1000);
+		assertTrue(contains(result[1], 50.0), "the maximum of the open bucket is kept");
+		for (int i = 1; i < result[0].length; i++) {
+			assertTrue(result[0][i] > result[0][i - 1], "times stay in order");
+		}
+	}
+
+	private static boolean contains(double[] values, double value) {
+		for (double v : values) {
+			if (v == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,115 @@
+package org.team1619.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the time from JVM start to all services healthy with and without a class data sharing archive
+ *
+ * Every boot is the simulator started from the robot jar in a fresh JVM, timed by the uptime Sim logs once its
+ * services are healthy and then stopped. The first boot records the classes it loads, an archive is dumped from that
+ * list with the same flags deploy uses on the roboRIO, then the boots rotate between sharing off, the JDK's default
+ * archive and the robot archive so all three see the same disk cache and clock. A desktop JVM only approximates the
+ * roboRIO, the "Services healthy" line Robot logs on every boot gives the real numbers.
+ *
+ * Run with: ./gradlew bootTimeBenchmark --args='[boots]'
+ */
+
+public class BootTimeBenchmark {
+
+	private static final String MAIN_CLASS = "org.team1619.Sim";
+	private static final Pattern sHealthy = Pattern.compile("Services healthy (\\d+) ms after JVM start, class data sharing (on|off)");
+
+	public static void main(String[] args) throws Exception {
+		int boots = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		String jar = System.getProperty("robotJar");
+		if (jar == null) {
+			throw new IllegalArgumentException("Set -DrobotJar to the robot jar, ./gradlew bootTimeBenchmark does");
+		}
+
+		Path directory = Paths.get("build", "boot-time");
+		Files.createDirectories(directory);
+		String classList = directory.resolve("classlist").toString();
+		String archive = directory.resolve("robot-cds.jsa").toString();
+		Files.deleteIfExists(Paths.get(archive));
+
+		boot(jar, "-Xshare:off", "-XX:DumpLoadedClassList=" + classList);
+		run(command(jar, false, "-Xshare:dump", "-XX:SharedClassListFile=" + classList, "-XX:SharedArchiveFile=" + archive));
+		System.out.printf(Locale.ROOT, "Dumped %s from %d recorded classes%n", archive, Files.readAllLines(Paths.get(classList)).size());
+
+		// The JDK's default archive only covers JDK classes, the robot archive adds the robot code and its libraries
+		String[] modes = {"sharing off", "JDK archive", "robot archive"};
+		String[][] jvmArgs = {{"-Xshare:off"}, {"-Xshare:auto"}, {"-Xshare:auto", "-XX:SharedArchiveFile=" + archive}};
+		long[][] uptimes = new long[modes.length][boots];
+		for (int b = 0; b < boots; b++) {
+			StringBuilder line = new StringBuilder("boot " + b + ":");
+			for (int m = 0; m < modes.length; m++) {
+				uptimes[m][b] = boot(jar, jvmArgs[m]);
+				line.append(String.format(Locale.ROOT, "%s %s %d ms", m == 0 ? "" : ",", modes[m], uptimes[m][b]));
+			}
+			System.out.println(line);
+		}
+
+		StringBuilder medians = new StringBuilder("median time to services healthy over " + boots + " boots:");
+		for (int m = 0; m < modes.length; m++) {
+			Arrays.sort(uptimes[m]);
+			medians.append(String.format(Locale.ROOT, "%s %s %d ms", m == 0 ? "" : ",", modes[m], uptimes[m][boots / 2]));
+		}
+		System.out.println(medians);
+	}
+
+	// Boots Sim and returns the uptime it logs once its services are healthy
+	private static long boot(String jar, String... jvmArgs) throws IOException, InterruptedException {
+		Process process = new ProcessBuilder(command(jar, true, jvmArgs)).redirectErrorStream(true).start();
+		long uptime = -1;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+			String line;
+			while (uptime < 0 && (line = reader.readLine()) != null) {
+				Matcher matcher = sHealthy.matcher(line);
+				if (matcher.find()) {
+					uptime = Long.parseLong(matcher.group(1));
+					// The robot archive must have been accepted, otherwise the JVM silently boots without it
+					if (matcher.group(2).equals("off") && String.join(" ", jvmArgs).contains("SharedArchiveFile")) {
+						throw new IllegalStateException("The archive was not used with " + String.join(" ", jvmArgs));
+					}
+				}
+			}
+			// Sim keeps running until it is stopped, the class list is written out on the way down
+			process.destroy();
+			process.waitFor();
+		}
+		if (uptime < 0) {
+			throw new IllegalStateException("Sim exited with " + process.exitValue() + " before its services were healthy");
+		}
+		return uptime;
+	}
+
+	private static void run(List<String> command) throws IOException, InterruptedException {
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+		if (process.waitFor() != 0) {
+			throw new IllegalStateException(String.join(" ", command) + " exited with " + process.exitValue());
+		}
+	}
+
+	private static List<String> command(String jar, boolean runMain, String... jvmArgs) {
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(Arrays.asList(jvmArgs));
+		command.add("-cp");
+		command.add(jar);
+		if (runMain) {
+			command.add(MAIN_CLASS);
+		}
+		return command;
+	}
+}
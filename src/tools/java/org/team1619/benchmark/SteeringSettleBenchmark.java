@@ -0,0 +1,113 @@
+package org.team1619.benchmark;
+
+import org.team1619.sim.SwervePlant;
+import org.team1619.state.SimModule;
+import org.team1619.utilities.swerve.SwerveModuleOptimizer;
+import org.uacr.shared.abstractions.RobotConfiguration;
+import org.uacr.shared.concretions.SharedRobotConfiguration;
+import org.uacr.utilities.injection.Injector;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares how long a swerve module takes to settle on a new direction with the original flip logic
+ * and with the SwerveModuleOptimizer
+ *
+ * The module is the front right module of the SwervePlant the simulator runs, and the optimizer uses the
+ * global_drivetrain settings, both from robot-configuration.yaml.
+ *
+ * Run with: ./gradlew steeringSettleBenchmark --args='[steps] [seed]'
+ */
+
+public class SteeringSettleBenchmark {
+
+	// The core thread runs every 10 ms
+	private static final double FRAME_TIME = 0.010;
+	private static final double MAX_STEP_TIME = 2.0;
+	private static final double SETTLE_TOLERANCE = 2.0;
+	private static final double SETTLE_HOLD_TIME = 0.020;
+	private static final int MODULE = 0;
+
+	public static void main(String[] args) {
+		int steps = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1619;
+
+		double[] directions = new double[steps];
+		Random random = new Random(seed);
+		for (int i = 0; i < steps; i++) {
+			directions[i] = random.nextDouble() * 360 - 180;
+		}
+
+		Injector injector = new Injector(new SimModule());
+		SharedRobotConfiguration robotConfiguration = injector.getInstance(SharedRobotConfiguration.class);
+		robotConfiguration.initialize();
+
+		report("original", run(robotConfiguration, directions, false));
+		report("optimized", run(robotConfiguration, directions, true));
+	}
+
+	/**
+	 * Steps the module through each direction and returns the time in seconds it took to settle on each one
+	 */
+	private static double[] run(RobotConfiguration robotConfiguration, double[] directions, boolean optimized) {
+		SwervePlant plant = SwervePlant.fromConfiguration(robotConfiguration, SwervePlant.loadSteerProfile(robotConfiguration));
+		SwerveModuleOptimizer optimizer = new SwerveModuleOptimizer(robotConfiguration.getDouble("global_drivetrain", "speed_scale_exponent"),
+				robotConfiguration.getDouble("global_drivetrain", "steer_feedforward_lead_time"), robotConfiguration.getDouble("global_drivetrain", "steer_feedforward_max"));
+
+		double physicsTime = plant.getSubStepTime();
+		int physicsStepsPerFrame = (int) Math.round(FRAME_TIME / physicsTime);
+		double[] settleTimes = new double[directions.length];
+
+		for (int i = 0; i < directions.length; i++) {
+			double direction = directions[i];
+			double time = 0;
+			double timeInTolerance = 0;
+
+			while (time < MAX_STEP_TIME) {
+				if (optimized) {
+					// Behavior_Drivetrain_Swerve steers from the continuous steering encoder, the frame the position
+					// setpoint is in
+					optimizer.optimize(direction, 1.0, plant.getEncoderPosition(MODULE), FRAME_TIME);
+					plant.setModule(MODULE, 0, optimizer.getAngle(), true);
+				} else {
+					// Mirrors the original Behavior_Drivetrain_Swerve logic, which read the analog angle sensor
+					double current = plant.getAnalogAngle(MODULE);
+					double angle = direction;
+					if (Math.pow(Math.cos((angle - current) * Math.PI / 180), 3) < 0) {
+						angle += 180;
+					}
+					plant.setModule(MODULE, 0, angle, true);
+				}
+
+				for (int s = 0; s < physicsStepsPerFrame; s++) {
+					plant.step();
+					time += physicsTime;
+					// Either end of the wheel pointing in the requested direction counts as on target
+					if (Math.abs(SwerveModuleOptimizer.wrapHalfDegrees(plant.getAnalogAngle(MODULE) - direction)) < SETTLE_TOLERANCE) {
+						timeInTolerance += physicsTime;
+					} else {
+						timeInTolerance = 0;
+					}
+				}
+
+				if (timeInTolerance >= SETTLE_HOLD_TIME) {
+					break;
+				}
+			}
+
+			settleTimes[i] = time - timeInTolerance;
+		}
+
+		return settleTimes;
+	}
+
+	private static void report(String name, double[] settleTimes) {
+		double[] sorted = settleTimes.clone();
+		Arrays.sort(sorted);
+		double mean = Arrays.stream(sorted).average().orElse(0);
+		double p99 = sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * 0.99) - 1)];
+		double max = sorted[sorted.length - 1];
+		System.out.printf("%-10s steps=%d mean=%.1fms p99=%.1fms max=%.1fms%n", name, sorted.length, mean * 1000, p99 * 1000, max * 1000);
+	}
+}
@@ -0,0 +1,78 @@
+package org.team1619.benchmark;
+
+import org.team1619.utilities.swerve.SwerveKinematicsBatch;
+
+import java.util.Random;
+
+/**
+ * Measures SwerveKinematicsBatch throughput on one core and on all cores, and reports how many of the sampled
+ * states the cos^3 speed scaling stalls
+ *
+ * Commands are sampled uniformly after shaping, so the result does not depend on input-shaping.yaml.
+ *
+ * Run with: ./gradlew swerveKinematicsThroughput --args='[states] [rounds]'
+ */
+
+public class SwerveKinematicsThroughput {
+
+	// A state stalls when the fastest wheel runs at less than this fraction of its requested speed
+	private static final double STALL_FRACTION = 0.2;
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		Random random = new Random(1619);
+		double[] forward = new double[count];
+		double[] strafe = new double[count];
+		double[] rotate = new double[count];
+		double[] heading = new double[count];
+		double[][] moduleAngles = new double[SwerveKinematicsBatch.MODULES][count];
+		double[][] speeds = new double[SwerveKinematicsBatch.MODULES][count];
+		double[][] angles = new double[SwerveKinematicsBatch.MODULES][count];
+		for (int i = 0; i < count; i++) {
+			forward[i] = random.nextDouble() * 2 - 1;
+			strafe[i] = random.nextDouble() * 2 - 1;
+			rotate[i] = random.nextDouble() * 2 - 1;
+			heading[i] = random.nextDouble() * 360;
+			for (int m = 0; m < SwerveKinematicsBatch.MODULES; m++) {
+				moduleAngles[m][i] = random.nextDouble() * 360 - 180;
+			}
+		}
+
+		SwerveKinematicsBatch kinematics = new SwerveKinematicsBatch(36.0, 24.0, 3.0);
+
+		for (int round = 0; round < rounds; round++) {
+			long start = System.nanoTime();
+			kinematics.compute(forward, strafe, rotate, heading, true, moduleAngles, speeds, angles, 0, count);
+			long single = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			kinematics.compute(forward, strafe, rotate, heading, true, moduleAngles, speeds, angles);
+			long parallel = System.nanoTime() - start;
+
+			System.out.printf("round %d: single core %.1f M states/s, %d cores %.1f M states/s%n", round,
+					count / (single / 1000.0), Runtime.getRuntime().availableProcessors(), count / (parallel / 1000.0));
+		}
+
+		// Compare the fastest scaled wheel against an unscaled run with every module already on target
+		double[][] unscaledSpeeds = new double[SwerveKinematicsBatch.MODULES][count];
+		double[][] targetAngles = new double[SwerveKinematicsBatch.MODULES][count];
+		kinematics.compute(forward, strafe, rotate, heading, true, moduleAngles, speeds, angles);
+		kinematics.compute(forward, strafe, rotate, heading, true, moduleAngles, unscaledSpeeds, targetAngles);
+		kinematics.compute(forward, strafe, rotate, heading, true, targetAngles, unscaledSpeeds, new double[SwerveKinematicsBatch.MODULES][count]);
+		int stalled = 0;
+		for (int i = 0; i < count; i++) {
+			double scaled = 0;
+			double unscaled = 0;
+			for (int m = 0; m < SwerveKinematicsBatch.MODULES; m++) {
+				scaled = Math.max(scaled, Math.abs(speeds[m][i]));
+				unscaled = Math.max(unscaled, Math.abs(unscaledSpeeds[m][i]));
+			}
+			if (unscaled > 0.1 && scaled < unscaled * STALL_FRACTION) {
+				stalled++;
+			}
+		}
+		System.out.printf("%.1f%% of states stall below %.0f%% of requested speed%n", stalled * 100.0 / count, STALL_FRACTION * 100);
+	}
+}
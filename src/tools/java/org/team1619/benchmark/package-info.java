@@ -0,0 +1,4 @@
+@NonNullByDefault
+package org.team1619.benchmark;
+
+import org.uacr.NonNullByDefault;
\ No newline at end of file
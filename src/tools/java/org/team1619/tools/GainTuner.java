@@ -0,0 +1,522 @@
+package org.team1619.tools;
+
+import org.team1619.modelfactory.BehaviorDependencies;
+import org.team1619.modelfactory.BehaviorRegistry;
+import org.team1619.sim.SwervePlant;
+import org.team1619.sim.SwervePlantService;
+import org.team1619.state.SimModule;
+import org.team1619.utilities.input.ControllerState;
+import org.team1619.utilities.input.InputShaping;
+import org.team1619.utilities.input.JoystickShaper;
+import org.team1619.utilities.overload.OverloadController;
+import org.team1619.utilities.swerve.SwerveKinematics;
+import org.team1619.utilities.swerve.SwerveModuleOptimizer;
+import org.team1619.utilities.trace.FrameTracer;
+import org.uacr.models.behavior.Behavior;
+import org.uacr.shared.abstractions.InputValues;
+import org.uacr.shared.abstractions.OutputValues;
+import org.uacr.shared.abstractions.RobotConfiguration;
+import org.uacr.shared.concretions.SharedRobotConfiguration;
+import org.uacr.utilities.Config;
+import org.uacr.utilities.YamlConfigParser;
+import org.uacr.utilities.injection.Injector;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Tunes the swerve steering motor's closed loop profile, the drive speed scaling and the zeroing threshold against the
+ * simulator
+ *
+ * Every episode is a headless SimModule robot: the input and output values of a sandbox injector, the
+ * bh_drivetrain_zero and bh_drivetrain_swerve behaviors configured from states.yaml, and the SwervePlantService the
+ * simulator runs, all stepped one core frame at a time in simulated time. The plant's motors keep the physical
+ * parameters in global_sim and only its steering position loop, the profile the real motor controllers run, comes
+ * from the candidate. The episode starts like a code restart,
+ * with the modules lined up straight, their encoders holding stale counts and the robot just bumped, and zeros
+ * them. It then drives through random stick direction changes. It is scored on how long zeroing takes, how long the
+ * modules take to settle on each new direction and how far they overshoot it, how far the wheels roll while still
+ * pointing away from their targets, and the RMS distance between the robot and where it would be if it moved exactly
+ * as the sticks asked. The rolling term is what keeps the speed scaling from being tuned away, without it wheels at
+ * full speed in the wrong direction cost little. A zero accepted too early leaves the encoders off from the modules'
+ * true angles, which shows up as longer settle times. Episodes run in parallel on all cores.
+ *
+ * The tuned values are p, i and d of the global_drivetrain steer_profile, global_drivetrain speed_scale_exponent and
+ * the st_drivetrain_zero zeroing_threshold. A grid around the configured gains picks the starting point and
+ * Nelder-Mead refines all five together. The best profile is written as a closed-loop-profiles.yaml fragment, with the
+ * speed scaling and zeroing threshold it was tuned with noted in its header.
+ *
+ * Run with: ./gradlew tuneGains --args='[output file] [episodes]'
+ */
+
+public class GainTuner {
+
+	// Tuned values, in candidate order
+	private static final String[] sProfileGains = {"p", "i", "d"};
+	private static final int SPEED_SCALE_EXPONENT = 3;
+	private static final int ZEROING_THRESHOLD = 4;
+	// Past this the wheels barely move until they are lined up, and once steering is fast the score hardly changes
+	private static final double MAX_SPEED_SCALE_EXPONENT = 10.0;
+	// Categories whose enabled flag is forced off so episodes have no side effects
+	private static final Set<String> sDisabledCategories = Set.of("global_warm_restart", "global_trace", "global_overload");
+
+	// The core thread runs every 10 ms
+	private static final long FRAME_TIME = 10_000_000;
+
+	// Encoders start up to STALE_POSITION degrees out, and each module is bumped at up to BUMP_OUTPUT percent output
+	// for up to BUMP_TIME seconds as zeroing starts
+	private static final double STALE_POSITION = 90.0;
+	private static final double BUMP_OUTPUT = 0.05;
+	private static final double BUMP_TIME = 0.05;
+	private static final double ZERO_TIME_LIMIT = 2.0;
+	private static final int STEPS_PER_EPISODE = 8;
+	private static final double STEP_TIME = 0.6;
+	private static final double SETTLE_TOLERANCE = 2.0;
+	private static final double SETTLE_HOLD_TIME = 0.020;
+
+	// Score weights: seconds of zeroing and settle time, degrees of overshoot, inches rolled off target and inches of
+	// RMS path error
+	private static final double ZERO_WEIGHT = 1.0;
+	private static final double SETTLE_WEIGHT = 1.0;
+	private static final double OVERSHOOT_WEIGHT = 0.01;
+	private static final double SETTLE_ERROR_WEIGHT = 0.2;
+	private static final double PATH_WEIGHT = 0.01;
+
+	private static final int NELDER_MEAD_ITERATIONS = 60;
+
+	private final RobotConfiguration fRobotConfiguration;
+	private final Config fSteerProfile;
+	private final Config fZeroConfig;
+	private final Config fSwerveConfig;
+	private final InputShaping fInputShaping;
+	private final double[] fConfigured;
+	private final int fEpisodes;
+
+	public GainTuner(RobotConfiguration robotConfiguration, Config steerProfile, Config zeroConfig, Config swerveConfig, int episodes) {
+		fRobotConfiguration = robotConfiguration;
+		fSteerProfile = steerProfile;
+		fZeroConfig = zeroConfig;
+		fSwerveConfig = swerveConfig;
+		fInputShaping = new InputShaping();
+		fEpisodes = episodes;
+
+		fConfigured = new double[ZEROING_THRESHOLD + 1];
+		for (int k = 0; k < sProfileGains.length; k++) {
+			fConfigured[k] = steerProfile.getDouble(sProfileGains[k]);
+		}
+		fConfigured[SPEED_SCALE_EXPONENT] = robotConfiguration.getDouble("global_drivetrain", "speed_scale_exponent");
+		fConfigured[ZEROING_THRESHOLD] = zeroConfig.getDouble("zeroing_threshold");
+	}
+
+	public static void main(String[] args) throws IOException {
+		Path output = Paths.get(args.length > 0 ? args[0] : "build/tuned-closed-loop-profiles.yaml");
+		int episodes = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+
+		Injector injector = new Injector(new SimModule());
+		SharedRobotConfiguration robotConfiguration = injector.getInstance(SharedRobotConfiguration.class);
+		robotConfiguration.initialize();
+		YamlConfigParser parser = new YamlConfigParser();
+		parser.load("states.yaml");
+
+		Config steerProfile = SwervePlant.loadSteerProfile(robotConfiguration);
+		GainTuner tuner = new GainTuner(robotConfiguration, steerProfile, behaviorConfig(parser, "st_drivetrain_zero"), behaviorConfig(parser, "st_drivetrain_swerve"),
+				episodes);
+		long start = System.nanoTime();
+
+		double configuredScore = tuner.score(tuner.fConfigured);
+		System.out.println(format("configured", tuner.fConfigured, configuredScore));
+
+		// Coarse grid over p and d around the configured gains, every candidate scored in parallel
+		double[] pScales = {0.25, 0.5, 1.0, 2.0, 4.0};
+		double[] dScales = {0.0, 0.5, 1.0, 2.0};
+		double[][] grid = new double[pScales.length * dScales.length][];
+		for (int p = 0; p < pScales.length; p++) {
+			for (int d = 0; d < dScales.length; d++) {
+				double[] candidate = tuner.fConfigured.clone();
+				candidate[0] *= pScales[p];
+				candidate[2] *= dScales[d];
+				grid[p * dScales.length + d] = candidate;
+			}
+		}
+		double[] gridScores = Arrays.stream(grid).parallel().mapToDouble(tuner::score).toArray();
+		int bestGrid = 0;
+		for (int g = 1; g < grid.length; g++) {
+			if (gridScores[g] < gridScores[bestGrid]) {
+				bestGrid = g;
+			}
+		}
+		System.out.println(format("grid best", grid[bestGrid], gridScores[bestGrid]));
+
+		double[] best = tuner.nelderMead(grid[bestGrid]);
+		double bestScore = tuner.score(best);
+		System.out.println(format("tuned", best, bestScore));
+		System.out.printf(Locale.ROOT, "%d episodes per candidate in %.1f s on %d cores%n", episodes, (System.nanoTime() - start) / 1e9,
+				Runtime.getRuntime().availableProcessors());
+
+		Path parent = output.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		Config tuned = tuner.candidateProfile(best);
+		Files.writeString(output, String.format(Locale.ROOT,
+				"# closed-loop-profiles.yaml, tuned by GainTuner over %d episodes, score %.4f (configured %.4f)\n" +
+				"# Tuned with global_drivetrain speed_scale_exponent %.3f and st_drivetrain_zero zeroing_threshold %.4f\n" +
+				"other:\n" +
+				"  %s:\n" +
+				"    profiles:\n" +
+				"      position:\n" +
+				"        f: %s\n" +
+				"        p: %.6f\n" +
+				"        i: %.6f\n" +
+				"        d: %.6f\n" +
+				"        max_output: %s\n" +
+				"        integral_range: %s\n" +
+				"        max_integral: %s\n",
+				episodes, bestScore, configuredScore, best[SPEED_SCALE_EXPONENT], best[ZEROING_THRESHOLD], steerProfile.getType(), tuned.getData().get("f"),
+				best[0], best[1], best[2], tuned.getData().get("max_output"), tuned.getData().get("integral_range"), tuned.getData().get("max_integral")));
+		System.out.println("Wrote " + output);
+	}
+
+	/**
+	 * Mean score of a candidate over every episode, lower is better. Episodes run in parallel.
+	 */
+	public double score(double[] candidate) {
+		return IntStream.range(0, fEpisodes).parallel().mapToDouble(episode -> runEpisode(candidate, episode)).average().orElse(Double.MAX_VALUE);
+	}
+
+	private double runEpisode(double[] candidate, long seed) {
+		Injector sandbox = new Injector(new SimModule());
+		InputValues inputValues = sandbox.getInstance(InputValues.class);
+		OutputValues outputValues = sandbox.getInstance(OutputValues.class);
+		RobotConfiguration robotConfiguration = candidateConfiguration(candidate);
+
+		Map<String, Object> zeroData = new HashMap<>(fZeroConfig.getData());
+		zeroData.put("zeroing_threshold", candidate[ZEROING_THRESHOLD]);
+		Config zeroConfig = new Config(fZeroConfig.getType(), zeroData);
+
+		FrameTracer tracer = new FrameTracer(inputValues, robotConfiguration);
+		ControllerState controllerState = new ControllerState(inputValues);
+		BehaviorDependencies dependencies = new BehaviorDependencies()
+				.add(InputValues.class, inputValues)
+				.add(OutputValues.class, outputValues)
+				.add(RobotConfiguration.class, robotConfiguration)
+				.add(OverloadController.class, new OverloadController(inputValues, robotConfiguration, tracer))
+				.add(ControllerState.class, controllerState)
+				.add(InputShaping.class, fInputShaping);
+		SwervePlant plant = SwervePlant.fromConfiguration(robotConfiguration, candidateProfile(candidate));
+		Episode episode = new Episode(inputValues, outputValues, robotConfiguration, plant, controllerState, fInputShaping.create("forward", "strafe", "rotate"),
+				new Random(seed));
+
+		double zeroScore = episode.zero(BehaviorRegistry.create("bh_drivetrain_zero", zeroConfig, dependencies), zeroConfig);
+		double driveScore = episode.drive(BehaviorRegistry.create("bh_drivetrain_swerve", fSwerveConfig, dependencies), fSwerveConfig);
+		return zeroScore + driveScore;
+	}
+
+	// The configured steering profile with the candidate's gains
+	private Config candidateProfile(double[] candidate) {
+		Map<String, Object> data = new HashMap<>(fSteerProfile.getData());
+		for (int k = 0; k < sProfileGains.length; k++) {
+			data.put(sProfileGains[k], candidate[k]);
+		}
+		return new Config(fSteerProfile.getType(), data);
+	}
+
+	// The tool's robot configuration with the candidate's speed scaling and the side effect categories turned off
+	private RobotConfiguration candidateConfiguration(double[] candidate) {
+		return (RobotConfiguration) Proxy.newProxyInstance(RobotConfiguration.class.getClassLoader(), new Class<?>[]{RobotConfiguration.class}, (proxy, method, arguments) -> {
+			if (arguments != null && arguments.length == 2) {
+				if (method.getName().equals("getBoolean") && sDisabledCategories.contains(arguments[0]) && "enabled".equals(arguments[1])) {
+					return false;
+				}
+				if (method.getName().equals("getDouble") && "global_drivetrain".equals(arguments[0]) && "speed_scale_exponent".equals(arguments[1])) {
+					return candidate[SPEED_SCALE_EXPONENT];
+				}
+			}
+			try {
+				return method.invoke(fRobotConfiguration, arguments);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		});
+	}
+
+	/**
+	 * Minimizes score() from a starting point, values are kept non-negative and the speed scaling exponent at most
+	 * MAX_SPEED_SCALE_EXPONENT
+	 */
+	public double[] nelderMead(double[] start) {
+		int dimensions = start.length;
+		double[][] simplex = new double[dimensions + 1][];
+		double[] scores = new double[dimensions + 1];
+		simplex[0] = start.clone();
+		for (int v = 1; v <= dimensions; v++) {
+			simplex[v] = start.clone();
+			simplex[v][v - 1] = start[v - 1] != 0 ? start[v - 1] * 1.5 : fConfigured[v - 1] / 2;
+		}
+		double[][] initial = simplex;
+		IntStream.range(0, dimensions + 1).parallel().forEach(v -> scores[v] = score(initial[v]));
+
+		for (int iteration = 0; iteration < NELDER_MEAD_ITERATIONS; iteration++) {
+			// Order vertices best to worst
+			Integer[] order = new Integer[dimensions + 1];
+			for (int v = 0; v <= dimensions; v++) {
+				order[v] = v;
+			}
+			Arrays.sort(order, (a, b) -> Double.compare(scores[a], scores[b]));
+			double[][] sortedSimplex = new double[dimensions + 1][];
+			double[] sortedScores = new double[dimensions + 1];
+			for (int v = 0; v <= dimensions; v++) {
+				sortedSimplex[v] = simplex[order[v]];
+				sortedScores[v] = scores[order[v]];
+			}
+			simplex = sortedSimplex;
+			System.arraycopy(sortedScores, 0, scores, 0, dimensions + 1);
+
+			double[] centroid = new double[dimensions];
+			for (int v = 0; v < dimensions; v++) {
+				for (int k = 0; k < dimensions; k++) {
+					centroid[k] += simplex[v][k] / dimensions;
+				}
+			}
+
+			double[] worst = simplex[dimensions];
+			double[] reflected = move(centroid, worst, -1.0);
+			double reflectedScore = score(reflected);
+
+			if (reflectedScore < scores[0]) {
+				double[] expanded = move(centroid, worst, -2.0);
+				double expandedScore = score(expanded);
+				simplex[dimensions] = expandedScore < reflectedScore ? expanded : reflected;
+				scores[dimensions] = Math.min(expandedScore, reflectedScore);
+			} else if (reflectedScore < scores[dimensions - 1]) {
+				simplex[dimensions] = reflected;
+				scores[dimensions] = reflectedScore;
+			} else {
+				double[] contracted = move(centroid, worst, 0.5);
+				double contractedScore = score(contracted);
+				if (contractedScore < scores[dimensions]) {
+					simplex[dimensions] = contracted;
+					scores[dimensions] = contractedScore;
+				} else {
+					// Shrink toward the best vertex
+					for (int v = 1; v <= dimensions; v++) {
+						simplex[v] = move(simplex[0], simplex[v], 0.5);
+					}
+					double[][] shrunk = simplex;
+					IntStream.range(1, dimensions + 1).parallel().forEach(v -> scores[v] = score(shrunk[v]));
+				}
+			}
+		}
+
+		int best = 0;
+		for (int v = 1; v <= dimensions; v++) {
+			if (scores[v] < scores[best]) {
+				best = v;
+			}
+		}
+		return simplex[best];
+	}
+
+	// centroid + factor * (point - centroid), clamped to non-negative values and the speed scaling limit
+	private static double[] move(double[] centroid, double[] point, double factor) {
+		double[] result = new double[centroid.length];
+		for (int k = 0; k < centroid.length; k++) {
+			result[k] = Math.max(0, centroid[k] + factor * (point[k] - centroid[k]));
+		}
+		result[SPEED_SCALE_EXPONENT] = Math.min(MAX_SPEED_SCALE_EXPONENT, result[SPEED_SCALE_EXPONENT]);
+		return result;
+	}
+
+	// The behavior_config of a state in states.yaml
+	@SuppressWarnings("unchecked")
+	private static Config behaviorConfig(YamlConfigParser parser, String stateName) {
+		Config state = parser.getConfig(stateName);
+		Object behaviorConfig = state.getData().get("behavior_config");
+		return behaviorConfig instanceof Map ? new Config(stateName, (Map<String, Object>) behaviorConfig) : state;
+	}
+
+	private static String format(String name, double[] candidate, double score) {
+		return String.format(Locale.ROOT, "%-10s p=%.5f i=%.5f d=%.5f speed_scale_exponent=%.3f zeroing_threshold=%.4f score=%.4f", name,
+				candidate[0], candidate[1], candidate[2], candidate[3], candidate[4], score);
+	}
+
+	/**
+	 * One simulated robot, the core thread's input, states and output order run one frame at a time
+	 */
+	private static class Episode {
+
+		private static final int MODULES = SwerveKinematics.MODULES;
+
+		private final InputValues fInputValues;
+		private final OutputValues fOutputValues;
+		private final ControllerState fControllerState;
+		private final JoystickShaper fJoystickShaper;
+		private final int fForwardChannel;
+		private final int fStrafeChannel;
+		private final int fRotateChannel;
+		private final SwervePlantService fPlantService;
+		private final SwervePlant fPlant;
+		private final Random fRandom;
+		private final int fSubStepsPerFrame;
+		private final double fLengthRatio;
+		private final double fWidthRatio;
+		private final double fDriveFreeSpeed;
+		private final String[] fAngleOutputs;
+
+		private long mTime;
+
+		private Episode(InputValues inputValues, OutputValues outputValues, RobotConfiguration robotConfiguration, SwervePlant plant,
+		                ControllerState controllerState, JoystickShaper joystickShaper, Random random) {
+			fInputValues = inputValues;
+			fOutputValues = outputValues;
+			fControllerState = controllerState;
+			fJoystickShaper = joystickShaper;
+			fForwardChannel = joystickShaper.getChannel("forward");
+			fStrafeChannel = joystickShaper.getChannel("strafe");
+			fRotateChannel = joystickShaper.getChannel("rotate");
+			fPlantService = new SwervePlantService(inputValues, outputValues, robotConfiguration, plant);
+			fPlant = plant;
+			fRandom = random;
+			fSubStepsPerFrame = (int) Math.round(FRAME_TIME / 1e9 / fPlant.getSubStepTime());
+
+			double robotLength = robotConfiguration.getDouble("global_drivetrain", "robot_length");
+			double robotWidth = robotConfiguration.getDouble("global_drivetrain", "robot_width");
+			double diameter = Math.sqrt(robotLength * robotLength + robotWidth * robotWidth);
+			fLengthRatio = robotLength / diameter;
+			fWidthRatio = robotWidth / diameter;
+			fDriveFreeSpeed = robotConfiguration.getDouble("global_sim", "drive_free_speed");
+
+			fAngleOutputs = new String[MODULES];
+			for (int m = 0; m < MODULES; m++) {
+				fAngleOutputs[m] = "opn_drivetrain_" + SwerveKinematics.MODULE_NAMES[m] + "_angle";
+			}
+			mTime = System.nanoTime();
+			fPlantService.advance(0);
+		}
+
+		/**
+		 * Zeros the modules, returns the weighted zeroing time
+		 */
+		private double zero(Behavior behavior, Config config) {
+			for (int m = 0; m < MODULES; m++) {
+				fPlant.setEncoderPosition(m, (fRandom.nextDouble() * 2 - 1) * STALE_POSITION);
+				fPlant.setModule(m, 0, (fRandom.nextDouble() * 2 - 1) * BUMP_OUTPUT, false);
+			}
+			fPlantService.advance((int) (fRandom.nextDouble() * BUMP_TIME / fPlant.getSubStepTime()));
+
+			// No saved offsets, as RobotStatus reports when there is no offsets file, so every module zeros
+			fInputValues.setBoolean("ipb_drivetrain_zero_offsets_loaded", true);
+			int updateDivisor = config.getInt("update_divisor", 1);
+			behavior.initialize("st_drivetrain_zero", config);
+			int frame = 0;
+			while (!behavior.isDone() && frame * FRAME_TIME / 1e9 < ZERO_TIME_LIMIT) {
+				runFrame(frame % updateDivisor == 0 ? behavior : null);
+				frame++;
+			}
+			behavior.dispose();
+			return ZERO_WEIGHT * frame * FRAME_TIME / 1e9;
+		}
+
+		/**
+		 * Drives through random stick directions, returns the weighted settle time, overshoot, distance rolled off target
+		 * and path error
+		 */
+		private double drive(Behavior behavior, Config config) {
+			double[][] speeds = new double[MODULES][1];
+			double[][] targets = new double[MODULES][1];
+			double[] startErrors = new double[MODULES];
+			int framesPerStep = (int) Math.round(STEP_TIME * 1e9 / FRAME_TIME);
+			double frameSeconds = FRAME_TIME / 1e9;
+
+			double settleTotal = 0;
+			double overshootTotal = 0;
+			double settleError = 0;
+			double squaredPathError = 0;
+			int pathSamples = 0;
+
+			behavior.initialize("st_drivetrain_swerve", config);
+			fJoystickShaper.reset();
+			for (int step = 0; step < STEPS_PER_EPISODE; step++) {
+				double direction = fRandom.nextDouble() * 2 * Math.PI;
+				fInputValues.setNumeric("ipn_driver_left_x", Math.sin(direction));
+				fInputValues.setNumeric("ipn_driver_left_y", Math.cos(direction));
+
+				double overshoot = 0;
+				double timeInTolerance = 0;
+				double settleTime = STEP_TIME;
+				double idealX = fPlant.getX();
+				double idealY = fPlant.getY();
+
+				for (int frame = 0; frame < framesPerStep; frame++) {
+					runFrame(behavior);
+
+					// What the sticks ask for, from the same shaping and kinematics the behavior uses
+					fJoystickShaper.update(fInputValues, mTime);
+					SwerveKinematics.toModules(fJoystickShaper.get(fForwardChannel), fJoystickShaper.get(fStrafeChannel), fJoystickShaper.get(fRotateChannel),
+							fLengthRatio, fWidthRatio, speeds, targets, 0);
+					double commandX = 0;
+					double commandY = 0;
+					double maxError = 0;
+					for (int m = 0; m < MODULES; m++) {
+						double error = SwerveModuleOptimizer.wrapHalfDegrees(fPlant.getAnalogAngle(m) - targets[m][0]);
+						if (frame == 0) {
+							startErrors[m] = error;
+						} else if (Math.signum(error) == -Math.signum(startErrors[m])) {
+							overshoot = Math.max(overshoot, Math.abs(error));
+						}
+						maxError = Math.max(maxError, Math.abs(error));
+						// Distance the wheel rolls across its target direction
+						settleError += Math.abs(fPlant.getDriveRate(m) * Math.sin(Math.toRadians(error))) * frameSeconds / MODULES;
+						commandX += speeds[m][0] * fDriveFreeSpeed * Math.cos(Math.toRadians(targets[m][0])) / MODULES;
+						commandY += speeds[m][0] * fDriveFreeSpeed * Math.sin(Math.toRadians(targets[m][0])) / MODULES;
+					}
+					timeInTolerance = maxError < SETTLE_TOLERANCE ? timeInTolerance + frameSeconds : 0;
+					if (timeInTolerance >= SETTLE_HOLD_TIME && settleTime == STEP_TIME) {
+						settleTime = (frame + 1) * frameSeconds - timeInTolerance;
+					}
+
+					// Where the robot would be if it drove exactly as commanded
+					double heading = Math.toRadians(fPlant.getHeading());
+					idealX += (commandX * Math.cos(heading) - commandY * Math.sin(heading)) * frameSeconds;
+					idealY += (commandX * Math.sin(heading) + commandY * Math.cos(heading)) * frameSeconds;
+					double dx = fPlant.getX() - idealX;
+					double dy = fPlant.getY() - idealY;
+					squaredPathError += dx * dx + dy * dy;
+					pathSamples++;
+				}
+				settleTotal += settleTime;
+				overshootTotal += overshoot;
+			}
+			behavior.dispose();
+
+			return SETTLE_WEIGHT * settleTotal / STEPS_PER_EPISODE + OVERSHOOT_WEIGHT * overshootTotal / STEPS_PER_EPISODE
+					+ SETTLE_ERROR_WEIGHT * settleError / STEPS_PER_EPISODE + PATH_WEIGHT * Math.sqrt(squaredPathError / pathSamples);
+		}
+
+		// Input service, states service and output service for one frame, a null behavior skips its update
+		private void runFrame(Behavior behavior) {
+			fPlantService.advance(fSubStepsPerFrame);
+			mTime += FRAME_TIME;
+			fControllerState.update(mTime);
+			if (behavior != null) {
+				behavior.update();
+			}
+			fPlantService.readCommands();
+			// The output service consumes the zero flags once it has sent them
+			for (int m = 0; m < MODULES; m++) {
+				fOutputValues.setOutputFlag(fAngleOutputs[m], "");
+			}
+		}
+	}
+}